@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ask the Audience polls as the simulated audience grows. Audiences larger
+ * than one fork-join leaf vote in parallel on the common pool, so the large
+ * sizes show how the poll scales with the cores available.
+ * {@link #vote} is the raw simulation with all four options in play,
+ * {@link #voteAfterFiftyFifty} with two, and {@link #pollAudience} the whole
+ * lifeline core including the percentages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudienceBenchmark {
+
+    private static final int LEVEL = 10;
+
+    @Param({"100", "10000", "100000", "1000000"})
+    public int size;
+
+    private Object audience;
+    private Object question;
+    private Object lifelines;
+    private int keptWrong;
+    private int[] tallies;
+    private Object percentages;
+    private long seed;
+
+    @Setup
+    public void setUp() throws Throwable {
+        Object bank = (Object) GameApi.NEW_QUESTION_BANK.invokeExact();
+        question = (Object) GameApi.GET_QUESTION.invokeExact(bank, LEVEL);
+        audience = (Object) GameApi.NEW_AUDIENCE.invokeExact(size);
+        lifelines = (Object) GameApi.NEW_LIFELINES.invokeExact((Object) new SplittableRandom(42), false);
+        GameApi.SET_AUDIENCE.invokeExact(lifelines, audience);
+        keptWrong = (int) GameApi.PICK_FIFTY_FIFTY.invokeExact(lifelines, question);
+        tallies = new int[4];
+        percentages = new int[4];
+    }
+
+    @Benchmark
+    public Object vote() throws Throwable {
+        GameApi.VOTE.invokeExact(audience, question, -1, seed++, (Object) tallies);
+        return tallies;
+    }
+
+    @Benchmark
+    public Object voteAfterFiftyFifty() throws Throwable {
+        GameApi.VOTE.invokeExact(audience, question, keptWrong, seed++, (Object) tallies);
+        return tallies;
+    }
+
+    @Benchmark
+    public Object pollAudience() throws Throwable {
+        GameApi.POLL_AUDIENCE.invokeExact(lifelines, question, percentages);
+        return percentages;
+    }
+}
@@ -0,0 +1,96 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Method handles onto the game classes.
+ *
+ * The game lives in the default package, which named packages cannot import,
+ * and JMH refuses benchmarks in the default package. The handles are static
+ * final, so the JIT inlines them and they cost the same as direct calls.
+ * Reference types are erased to Object; primitives are kept.
+ */
+final class GameApi {
+
+    static final MethodHandle NEW_QUESTION_BANK = constructor("QuestionBank");
+    static final MethodHandle GET_QUESTION = method("QuestionBank", "getQuestion", int.class);
+    static final MethodHandle GET_CORRECT_KEY = method("Question", "getCorrectKey");
+    static final MethodHandle GET_CORRECT_INDEX = method("Question", "getCorrectIndex");
+    static final MethodHandle GET_OPTION_KEY = method("Question", "getOptionKey", int.class);
+    static final MethodHandle IS_CORRECT = method("Question", "isCorrect", String.class);
+    static final MethodHandle DISPLAY_QUESTION = method("Question", "displayQuestion");
+    static final MethodHandle DISPLAY_OPTIONS = method("Question", "displayOptions");
+
+    static final MethodHandle NEW_LIFELINES = constructor("Lifelines", RandomGenerator.class, boolean.class);
+    static final MethodHandle USE_FIFTY_FIFTY = method("Lifelines", "useFiftyFifty", type("Question"));
+    static final MethodHandle USE_ASK_THE_AUDIENCE = method("Lifelines", "useAskTheAudience", type("Question"));
+    static final MethodHandle USE_PHONE_A_FRIEND = method("Lifelines", "usePhoneAFriend", type("Question"));
+    static final MethodHandle PICK_FIFTY_FIFTY = method("Lifelines", "pickFiftyFifty", type("Question"));
+    static final MethodHandle POLL_AUDIENCE = method("Lifelines", "pollAudience", type("Question"), int[].class);
+    static final MethodHandle SET_AUDIENCE = method("Lifelines", "setAudience", type("AudienceSimulation"));
+
+    static final MethodHandle NEW_AUDIENCE = constructor("AudienceSimulation", int.class);
+    static final MethodHandle VOTE =
+            method("AudienceSimulation", "vote", type("Question"), int.class, long.class, int[].class);
+    static final MethodHandle NEW_LIVE_AUDIENCE = constructor("LiveAudience");
+    static final MethodHandle JOIN = method("LiveAudience", "join");
+    static final MethodHandle OPEN_VOTING =
+            method("LiveAudience", "open", type("Question"), int.class, long.class, TimeUnit.class);
+    static final MethodHandle CAST_VOTE = method("LiveAudience$VotingWindow", "vote", int.class, int.class);
+    static final MethodHandle CLOSE_VOTING = method("LiveAudience$VotingWindow", "close");
+
+    static final MethodHandle NEW_SESSION_RANDOM = constructor("SessionRandom", long.class);
+    static final MethodHandle SESSION_QUESTIONS = method("SessionRandom", "questions");
+    static final MethodHandle NEW_QUESTION_CURSOR =
+            constructor("QuestionCursor", type("QuestionBank"), RandomGenerator.class);
+    static final MethodHandle NEXT_QUESTION = method("QuestionCursor", "next", int.class);
+
+    static final MethodHandle STANDARD_LADDER = method("PrizeLadder", "standard");
+    static final MethodHandle PARSE_LADDER = method("PrizeLadder", "parse", String.class);
+    static final MethodHandle GET_HIGHEST_CHECKPOINT_PRIZE =
+            method("PrizeLadder", "getHighestCheckpointPrize", int.class);
+    static final MethodHandle DISPLAY_LADDER = method("PrizeLadder", "displayLadder", int.class);
+    static final MethodHandle CLEAR_SCREEN = method("TUI", "clearScreen");
+    static final MethodHandle DISPLAY_TITLE = method("TUI", "displayTitle", String.class);
+    static final MethodHandle FLUSH = method("TUI", "flush");
+    static final MethodHandle SET_RENDERER = method("TUI", "setRenderer", type("FrameRenderer"));
+    static final MethodHandle NEW_FRAME_RENDERER =
+            constructor("FrameRenderer", OutputStream.class, String.class, int.class);
+
+    static final MethodHandle NEW_TIMER_WHEEL = constructor("TimerWheel", long.class, TimeUnit.class, int.class);
+    static final MethodHandle SCHEDULE = method("TimerWheel", "schedule", Runnable.class, long.class, TimeUnit.class);
+    static final MethodHandle ADVANCE = method("TimerWheel", "advance");
+
+    private GameApi() {
+    }
+
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Game class not on the classpath: " + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(String owner, Class<?>... parameters) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflectConstructor(type(owner).getConstructor(parameters));
+            return handle.asType(handle.type().erase());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No public constructor on " + owner, e);
+        }
+    }
+
+    private static MethodHandle method(String owner, String name, Class<?>... parameters) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(type(owner).getMethod(name, parameters));
+            return handle.asType(handle.type().erase());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No public method " + owner + "." + name, e);
+        }
+    }
+}
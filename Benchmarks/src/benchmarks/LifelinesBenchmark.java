@@ -0,0 +1,83 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lifeline computation without terminal output.
+ * A lifeline can be used once, so each use* operation creates a fresh silent
+ * Lifelines; {@link #newLifelines} measures that overhead on its own.
+ * The pick/poll operations are the cores on option ordinals, without the result maps;
+ * see AudienceBenchmark for polls of larger audiences.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LifelinesBenchmark {
+
+    @Param({"1", "3", "15"})
+    public int level;
+
+    private Object random;
+    private Object question;
+    private Object lifelines;
+    private Object percentages;
+
+    @Setup
+    public void setUp() throws Throwable {
+        random = new Random(42);
+        Object bank = (Object) GameApi.NEW_QUESTION_BANK.invokeExact();
+        question = (Object) GameApi.GET_QUESTION.invokeExact(bank, level);
+        lifelines = (Object) GameApi.NEW_LIFELINES.invokeExact(random, false);
+        percentages = new int[4];
+    }
+
+    @Benchmark
+    public Object newLifelines() throws Throwable {
+        return (Object) GameApi.NEW_LIFELINES.invokeExact(random, false);
+    }
+
+    @Benchmark
+    public Object fiftyFifty() throws Throwable {
+        Object lifelines = (Object) GameApi.NEW_LIFELINES.invokeExact(random, false);
+        return (Object) GameApi.USE_FIFTY_FIFTY.invokeExact(lifelines, question);
+    }
+
+    @Benchmark
+    public Object askTheAudience() throws Throwable {
+        Object lifelines = (Object) GameApi.NEW_LIFELINES.invokeExact(random, false);
+        return (Object) GameApi.USE_ASK_THE_AUDIENCE.invokeExact(lifelines, question);
+    }
+
+    @Benchmark
+    public Object phoneAFriend() throws Throwable {
+        Object lifelines = (Object) GameApi.NEW_LIFELINES.invokeExact(random, false);
+        return (Object) GameApi.USE_PHONE_A_FRIEND.invokeExact(lifelines, question);
+    }
+
+    @Benchmark
+    public int pickFiftyFifty() throws Throwable {
+        return (int) GameApi.PICK_FIFTY_FIFTY.invokeExact(lifelines, question);
+    }
+
+    @Benchmark
+    public Object pollAudience() throws Throwable {
+        GameApi.POLL_AUDIENCE.invokeExact(lifelines, question, percentages);
+        return percentages;
+    }
+}
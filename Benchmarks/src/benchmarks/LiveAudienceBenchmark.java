@@ -0,0 +1,111 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Spectator votes arriving at once from many threads into one voting window.
+ * {@link #vote} is a first vote by a new voter, {@link #duplicateVote} a
+ * voter voting again, which only reads the voter's bit.
+ * A show needs 100,000 votes in 10 seconds, 0.01 votes per microsecond.
+ *
+ * Usage: java benchmarks.LiveAudienceBenchmark [max threads]
+ * runs every operation at 1, 2, 4, ... threads up to the number of cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LiveAudienceBenchmark {
+
+    // Voter IDs handed to each benchmark thread per iteration
+    private static final int VOTERS_PER_THREAD = 1 << 22;
+    private static final int MAX_THREADS = 16;
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            new Runner(new OptionsBuilder()
+                    .include(LiveAudienceBenchmark.class.getName())
+                    .threads(threads)
+                    .build()).run();
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Show {
+
+        Object question;
+        Object audience;
+        volatile Object window;
+        final AtomicInteger voterBlocks = new AtomicInteger();
+
+        @Setup
+        public void setUp() throws Throwable {
+            Object bank = (Object) GameApi.NEW_QUESTION_BANK.invokeExact();
+            question = (Object) GameApi.GET_QUESTION.invokeExact(bank, 5);
+            audience = (Object) GameApi.NEW_LIVE_AUDIENCE.invokeExact();
+            for (int i = 0; i < VOTERS_PER_THREAD * MAX_THREADS; i++) {
+                int voter = (int) GameApi.JOIN.invokeExact(audience);
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void openWindow() throws Throwable {
+            window = (Object) GameApi.OPEN_VOTING.invokeExact(audience, question, -1, 1L, (Object) TimeUnit.HOURS);
+            voterBlocks.set(0);
+        }
+
+        @TearDown(Level.Iteration)
+        public void closeWindow() throws Throwable {
+            Object result = (Object) GameApi.CLOSE_VOTING.invokeExact(window);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Voter {
+
+        int next;
+        int end;
+        int option;
+
+        @Setup(Level.Iteration)
+        public void setUp(Show show) {
+            next = show.voterBlocks.getAndIncrement() * VOTERS_PER_THREAD;
+            end = next + VOTERS_PER_THREAD;
+        }
+    }
+
+    @Benchmark
+    public Object vote(Show show, Voter voter) throws Throwable {
+        // Past the thread's block, votes count as duplicates of its last voter
+        int id = voter.next < voter.end ? voter.next++ : voter.end - 1;
+        voter.option = (voter.option + 1) & 3;
+        return (Object) GameApi.CAST_VOTE.invokeExact(show.window, id, voter.option);
+    }
+
+    @Benchmark
+    public Object duplicateVote(Show show, Voter voter) throws Throwable {
+        return (Object) GameApi.CAST_VOTE.invokeExact(show.window, voter.end - 1, 0);
+    }
+}
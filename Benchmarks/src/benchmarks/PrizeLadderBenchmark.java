@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Guaranteed-prize lookup, done on every wrong answer and walk away,
+ * on the standard ladder and on a 30-level variant with amounts past the int range.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrizeLadderBenchmark {
+
+    private static final String VARIANT = "100,200,300,500,1000*,2000,4000,8000,16000,32000*,"
+            + "64000,125000,250000,500000,1000000*,2000000,4000000,8000000,16000000,32000000*,"
+            + "64000000,125000000,250000000,500000000,1000000000*,2000000000,4000000000,"
+            + "8000000000,16000000000,32000000000*";
+
+    @Param({"standard", "variant"})
+    public String ladder;
+
+    @Param({"1", "7", "15"})
+    public int level;
+
+    private Object prizeLadder;
+
+    @Setup
+    public void setUp() throws Throwable {
+        prizeLadder = "standard".equals(ladder)
+                ? (Object) GameApi.STANDARD_LADDER.invokeExact()
+                : (Object) GameApi.PARSE_LADDER.invokeExact((Object) VARIANT);
+    }
+
+    @Benchmark
+    public long highestCheckpointPrize() throws Throwable {
+        return (long) GameApi.GET_HIGHEST_CHECKPOINT_PRIZE.invokeExact(prizeLadder, level);
+    }
+}
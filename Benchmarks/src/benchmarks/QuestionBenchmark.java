@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Question selection and answer checking, the first two steps of every question.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QuestionBenchmark {
+
+    @Param({"1", "5", "15"})
+    public int level;
+
+    private Object bank;
+    private Object question;
+    private String correctKey;
+    private String wrongKey;
+
+    @Setup
+    public void setUp() throws Throwable {
+        bank = (Object) GameApi.NEW_QUESTION_BANK.invokeExact();
+        question = (Object) GameApi.GET_QUESTION.invokeExact(bank, level);
+        correctKey = (String) (Object) GameApi.GET_CORRECT_KEY.invokeExact(question);
+        // Another option of the same question, so true/false questions get a wrong answer too
+        int correct = (int) GameApi.GET_CORRECT_INDEX.invokeExact(question);
+        wrongKey = (String) (Object) GameApi.GET_OPTION_KEY.invokeExact(question, correct == 0 ? 1 : 0);
+    }
+
+    @Benchmark
+    public Object getQuestion() throws Throwable {
+        return (Object) GameApi.GET_QUESTION.invokeExact(bank, level);
+    }
+
+    @Benchmark
+    public boolean isCorrectRight() throws Throwable {
+        return (boolean) GameApi.IS_CORRECT.invokeExact(question, (Object) correctKey);
+    }
+
+    @Benchmark
+    public boolean isCorrectWrong() throws Throwable {
+        return (boolean) GameApi.IS_CORRECT.invokeExact(question, (Object) wrongKey);
+    }
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Random draws as the number of threads grows: sessions sharing one
+ * java.util.Random, whose seed is a compare-and-set on an AtomicLong that
+ * every thread fights over, against each session drawing from its own
+ * SessionRandom stream. The *Draw operations pick a question through a
+ * QuestionCursor, the raw ones only draw a number.
+ *
+ * Usage: java benchmarks.RandomBenchmark [max threads]
+ * runs every operation at 1, 2, 4, ... threads up to the number of cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomBenchmark {
+
+    private static final int LEVEL = 5;
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            new Runner(new OptionsBuilder()
+                    .include(RandomBenchmark.class.getName())
+                    .threads(threads)
+                    .build()).run();
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        Object bank;
+        Random random;
+
+        @Setup
+        public void setUp() throws Throwable {
+            bank = (Object) GameApi.NEW_QUESTION_BANK.invokeExact();
+            random = new Random(42);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+
+        RandomGenerator stream;
+        Object sharedCursor;
+        Object sessionCursor;
+
+        @Setup
+        public void setUp(Shared shared) throws Throwable {
+            Object random = (Object) GameApi.NEW_SESSION_RANDOM.invokeExact(Thread.currentThread().getId());
+            stream = (RandomGenerator) (Object) GameApi.SESSION_QUESTIONS.invokeExact(random);
+            sharedCursor = (Object) GameApi.NEW_QUESTION_CURSOR.invokeExact(shared.bank, (Object) shared.random);
+            sessionCursor = (Object) GameApi.NEW_QUESTION_CURSOR.invokeExact(shared.bank, (Object) stream);
+        }
+    }
+
+    @Benchmark
+    public int sharedRandom(Shared shared) {
+        return shared.random.nextInt(100);
+    }
+
+    @Benchmark
+    public int sessionRandom(Session session) {
+        return session.stream.nextInt(100);
+    }
+
+    @Benchmark
+    public Object sharedRandomDraw(Session session) throws Throwable {
+        return (Object) GameApi.NEXT_QUESTION.invokeExact(session.sharedCursor, LEVEL);
+    }
+
+    @Benchmark
+    public Object sessionDraw(Session session) throws Throwable {
+        return (Object) GameApi.NEXT_QUESTION.invokeExact(session.sessionCursor, LEVEL);
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full question screen as Game draws it: clear, prize ladder, title,
+ * question and options, flushed through the frame renderer. Output goes to a
+ * null stream so the benchmark measures formatting, diffing and encoding, not
+ * the terminal. Each operation moves to the next level and back, as a game
+ * does, so the renderer always has changed lines to write.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    @Param({"1", "5", "15"})
+    public int level;
+
+    private Object ladder;
+    private int[] levels;
+    private Object[] questions;
+    private Object[] titles;
+    private int next;
+
+    @Setup
+    public void setUp() throws Throwable {
+        Object renderer = (Object) GameApi.NEW_FRAME_RENDERER.invokeExact(
+                (Object) OutputStream.nullOutputStream(), (Object) "\n", 100);
+        GameApi.SET_RENDERER.invokeExact(renderer);
+        Object bank = (Object) GameApi.NEW_QUESTION_BANK.invokeExact();
+        ladder = (Object) GameApi.STANDARD_LADDER.invokeExact();
+        int nextLevel = level == 15 ? 14 : level + 1;
+        levels = new int[] {level, nextLevel};
+        questions = new Object[] {
+            (Object) GameApi.GET_QUESTION.invokeExact(bank, level),
+            (Object) GameApi.GET_QUESTION.invokeExact(bank, nextLevel)
+        };
+        titles = new Object[] {"QUESTION " + level, "QUESTION " + nextLevel};
+    }
+
+    @Benchmark
+    public void questionScreen() throws Throwable {
+        int screen = next;
+        next ^= 1;
+        GameApi.CLEAR_SCREEN.invokeExact();
+        GameApi.DISPLAY_LADDER.invokeExact(ladder, levels[screen]);
+        GameApi.DISPLAY_TITLE.invokeExact(titles[screen]);
+        GameApi.DISPLAY_QUESTION.invokeExact(questions[screen]);
+        GameApi.DISPLAY_OPTIONS.invokeExact(questions[screen]);
+        GameApi.FLUSH.invokeExact();
+    }
+}
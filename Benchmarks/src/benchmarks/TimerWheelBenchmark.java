@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one tick of the question timer wheel as the number of active timers grows.
+ * The wheel is driven by hand, so a tick costs only its own work. Every timer
+ * re-arms itself when it expires, like a session moving on to its next
+ * question, which keeps the number of active timers constant.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimerWheelBenchmark {
+
+    // 30 s countdowns on the shared wheel's 100 ms ticks
+    private static final long TICK_MILLIS = 100;
+    private static final int MAX_DELAY_TICKS = 300;
+
+    @Param({"0", "1000", "10000", "100000"})
+    public int timers;
+
+    private Object wheel;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() throws Throwable {
+        wheel = (Object) GameApi.NEW_TIMER_WHEEL.invokeExact(TICK_MILLIS, (Object) TimeUnit.MILLISECONDS, 512);
+        for (int i = 0; i < timers; i++) {
+            rearm(new Countdown());
+        }
+    }
+
+    @Benchmark
+    public void tick() throws Throwable {
+        GameApi.ADVANCE.invokeExact(wheel);
+    }
+
+    private void rearm(Countdown countdown) {
+        try {
+            Object unused = (Object) GameApi.SCHEDULE.invokeExact(wheel, (Object) countdown,
+                    (1 + random.nextInt(MAX_DELAY_TICKS)) * TICK_MILLIS, (Object) TimeUnit.MILLISECONDS);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class Countdown implements Runnable {
+        @Override
+        public void run() {
+            rearm(this);
+        }
+    }
+}
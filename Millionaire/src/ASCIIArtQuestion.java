@@ -1,12 +1,34 @@
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Represents a question with ASCII art as the question display.
- * The ASCII art is stored in the question text field and displayed
- * in a formatted multi-line box.
+ * The ASCII art is shown in a formatted multi-line box above the question text.
+ *
+ * The art is split into lines and centered in the box once, when the question
+ * is created, so displaying it only puts the lines together with the box.
+ * Large art is kept run-length compressed (art is mostly runs of the same
+ * character, spaces above all) and only expanded while it is displayed.
  */
 public class ASCIIArtQuestion extends Question {
     
+    private static final String QUESTION_MARKER = "\n---QUESTION---\n";
+    private static final int ART_WIDTH = 65;
+    // Art taking more bytes than this once centered is kept compressed
+    private static final int COMPRESS_ABOVE = 1024;
+    // Compressed art: RUN, count, byte repeats the byte count times
+    private static final byte RUN = 0;
+    private static final int MIN_RUN = 4;
+    
+    // Centered art lines, or null while the art is compressed
+    private String[] artLines;
+    private byte[] compressedArt;
+    private int artBytes;
+    
     /**
      * Creates an ASCII art question.
      * @param asciiArt The ASCII art text (can be multi-line, use \n for line breaks)
@@ -16,10 +38,73 @@ public class ASCIIArtQuestion extends Question {
      * @param difficulty Difficulty level (1-15)
      * @param prize Prize amount for this question
      */
-    public ASCIIArtQuestion(String asciiArt, String questionText, Map<String, String> options, 
+    public ASCIIArtQuestion(String asciiArt, String questionText, Map<String, String> options,
                            String correctAnswer, int difficulty, int prize) {
-        // Store both ASCII art and question text, separated by a special marker
-        super(asciiArt + "\n---QUESTION---\n" + questionText, options, correctAnswer, difficulty, prize);
+        super(questionText, options, correctAnswer, difficulty, prize);
+        String[] lines = splitLines(asciiArt);
+        int count = lines.length;
+        while (count > 1 && lines[count - 1].isEmpty()) {
+            count--; // trailing line breaks add no lines
+        }
+        lines = Arrays.copyOf(lines, count);
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = TUI.centerText(lines[i].trim(), ART_WIDTH);
+        }
+        byte[] centered = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = centered.length > COMPRESS_ABOVE ? compress(centered) : null;
+        if (compressed != null && compressed.length < centered.length) {
+            compressedArt = compressed;
+            artBytes = centered.length;
+        } else {
+            artLines = lines;
+        }
+        computeId(getAsciiArt() + QUESTION_MARKER + questionText);
+    }
+    
+    /**
+     * Get the ASCII art part of the question, one line per art line with
+     * the surrounding spaces removed.
+     */
+    public String getAsciiArt() {
+        String[] lines = getArtLines();
+        StringBuilder art = new StringBuilder();
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) {
+                art.append('\n');
+            }
+            art.append(lines[i].trim());
+        }
+        return art.toString();
+    }
+    
+    /**
+     * Get the question text asked about the art.
+     */
+    public String getQuestionText() {
+        return getQuestion();
+    }
+    
+    @Override
+    public void setQuestion(String question) {
+        super.setQuestion(question);
+        computeId(getAsciiArt() + QUESTION_MARKER + question);
+    }
+    
+    /**
+     * Whether the art is held compressed.
+     */
+    public boolean isArtCompressed() {
+        return compressedArt != null;
+    }
+    
+    /**
+     * The art lines as displayed, centered in the box; expanded if compressed.
+     */
+    public String[] getArtLines() {
+        if (artLines != null) {
+            return artLines;
+        }
+        return splitLines(new String(expand(compressedArt, artBytes), StandardCharsets.UTF_8));
     }
     
     /**
@@ -27,33 +112,22 @@ public class ASCIIArtQuestion extends Question {
      */
     @Override
     public void displayQuestion() {
-        String fullText = getQuestion();
-        String[] parts = fullText.split("\n---QUESTION---\n");
+        String left = TUI.colorize("║ ", TUI.CYAN);
+        String right = TUI.colorize(" ║", TUI.CYAN);
         
-        if (parts.length == 2) {
-            String asciiArt = parts[0];
-            String questionText = parts[1];
-            
-            // Display ASCII art in a box
-            String[] asciiLines = asciiArt.split("\n");
-            System.out.println();
-            TUI.printColor("╔═══════════════════════════════════════════════════════════════════╗\n", TUI.CYAN);
-            for (String line : asciiLines) {
-                TUI.printColor("║ ", TUI.CYAN);
-                TUI.printColor(TUI.centerText(line.trim(), 65), TUI.BOLD + TUI.YELLOW);
-                TUI.printlnColor(" ║", TUI.CYAN);
-            }
-            TUI.printColor("╚═══════════════════════════════════════════════════════════════════╝\n", TUI.CYAN);
-            System.out.println();
-            
-            // Display the question text
-            TUI.printColor("Question: ", TUI.BOLD + TUI.CYAN);
-            TUI.printlnColor(questionText, TUI.WHITE);
-            System.out.println();
-        } else {
-            // Fallback if format is wrong
-            System.out.println(getQuestion());
+        // Display ASCII art in a box
+        TUI.println();
+        TUI.printColor("╔═══════════════════════════════════════════════════════════════════╗\n", TUI.CYAN);
+        for (String line : getArtLines()) {
+            TUI.println(left + TUI.colorize(line, TUI.BOLD + TUI.YELLOW) + right);
         }
+        TUI.printColor("╚═══════════════════════════════════════════════════════════════════╝\n", TUI.CYAN);
+        TUI.println();
+        
+        // Display the question text
+        TUI.printColor("Question: ", TUI.BOLD + TUI.CYAN);
+        TUI.printlnColor(getQuestion(), TUI.WHITE);
+        TUI.println();
     }
     
     /**
@@ -61,7 +135,7 @@ public class ASCIIArtQuestion extends Question {
      */
     @Override
     public void displayOptions() {
-        System.out.println();
+        TUI.println();
         TUI.printColor("╔═══════════════════════════════════════════════════════════════════╗\n", TUI.CYAN);
         TUI.printColor("║                           OPTIONS                                 ║\n", TUI.CYAN);
         TUI.printColor("╠═══════════════════════════════════════════════════════════════════╣\n", TUI.CYAN);
@@ -74,5 +148,59 @@ public class ASCIIArtQuestion extends Question {
         
         TUI.printColor("╚═══════════════════════════════════════════════════════════════════╝\n", TUI.CYAN);
     }
+    
+    private static String[] splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        int newline;
+        while ((newline = text.indexOf('\n', start)) >= 0) {
+            lines.add(text.substring(start, newline));
+            start = newline + 1;
+        }
+        lines.add(text.substring(start));
+        return lines.toArray(new String[0]);
+    }
+    
+    /**
+     * Run-length encode: runs of MIN_RUN or more equal bytes (and any RUN byte)
+     * become RUN, count, byte; everything else is copied.
+     */
+    static byte[] compress(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        int i = 0;
+        while (i < data.length) {
+            byte value = data[i];
+            int run = 1;
+            while (i + run < data.length && data[i + run] == value && run < 255) {
+                run++;
+            }
+            if (run >= MIN_RUN || value == RUN) {
+                out.write(RUN);
+                out.write(run);
+                out.write(value);
+            } else {
+                out.write(data, i, run);
+            }
+            i += run;
+        }
+        return out.toByteArray();
+    }
+    
+    static byte[] expand(byte[] data, int length) {
+        byte[] out = new byte[length];
+        int at = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == RUN) {
+                int run = data[i + 1] & 0xFF;
+                byte value = data[i + 2];
+                for (int end = at + run; at < end; at++) {
+                    out[at] = value;
+                }
+                i += 2;
+            } else {
+                out[at++] = data[i];
+            }
+        }
+        return out;
+    }
 }
-
@@ -0,0 +1,212 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The studio audience of Ask the Audience, as a crowd of virtual members
+ * who each vote for one option.
+ *
+ * How likely a member is to know the answer falls with the question's
+ * difficulty, from three in four on the first question to under one in five
+ * on the last. Members who know vote for the correct option; the others
+ * guess among the options still in play, so after a 50/50 nobody votes for
+ * an option that was taken away.
+ *
+ * Large audiences vote in parallel with fork-join: each task tallies its
+ * own members into an array of its own and the tallies are added up as the
+ * tasks join, so voters never share a counter. Every task gets a random
+ * stream split off the poll's seed in a fixed order, so a poll depends only
+ * on its seed and the audience size, never on the number of threads, and
+ * recorded games still replay exactly.
+ */
+public final class AudienceSimulation {
+
+    /** About the size of a studio audience. */
+    public static final int DEFAULT_SIZE = 200;
+    public static final int MAX_SIZE = 1_000_000;
+
+    /** Members tallied by one leaf task before it stops splitting. */
+    private static final int LEAF_MEMBERS = 16_384;
+    /** Option ordinals, the choices of a guess when all options are in play. */
+    private static final int[] ALL_OPTIONS = {0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final int size;
+
+    public AudienceSimulation(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Audience size must be between 1 and " + MAX_SIZE + ": " + size);
+        }
+        this.size = size;
+    }
+
+    /**
+     * The audience size given by the millionaire.audience property, or
+     * {@link #DEFAULT_SIZE} when it is not set.
+     */
+    public static AudienceSimulation configured() {
+        return Holder.CONFIGURED;
+    }
+
+    private static final class Holder {
+        static final AudienceSimulation CONFIGURED =
+                new AudienceSimulation(Integer.getInteger("millionaire.audience", DEFAULT_SIZE));
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Chance that a member knows the answer to a question of the given difficulty (1-15).
+     */
+    public static double knowsAnswer(int difficulty) {
+        int level = Math.max(1, Math.min(difficulty, 15));
+        return 0.75 - 0.04 * (level - 1);
+    }
+
+    /**
+     * Let every member vote on a question.
+     * @param question The question asked
+     * @param keptWrong Ordinal of the wrong option a 50/50 left, or -1 if all options are in play
+     * @param seed Seed of the poll
+     * @param tallies Filled with the number of votes per option ordinal
+     */
+    public void vote(Question question, int keptWrong, long seed, int[] tallies) {
+        int count = question.getOptionCount();
+        int correct = question.getCorrectIndex();
+        Arrays.fill(tallies, 0, count, 0);
+        if (correct < 0) {
+            return;
+        }
+        int[] choices;
+        int choiceCount;
+        if (keptWrong >= 0) {
+            choices = new int[] {correct, keptWrong};
+            choiceCount = 2;
+        } else if (count <= ALL_OPTIONS.length) {
+            choices = ALL_OPTIONS;
+            choiceCount = count;
+        } else {
+            choices = new int[count];
+            for (int i = 0; i < count; i++) {
+                choices[i] = i;
+            }
+            choiceCount = count;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        double knows = knowsAnswer(question.getDifficulty());
+        if (size <= LEAF_MEMBERS) {
+            // Small enough for one leaf: tally straight into the caller's array
+            tally(size, random, knows, correct, choices, choiceCount, tallies);
+            return;
+        }
+        VoteTask task = new VoteTask(size, random, knows, correct, choices, choiceCount, count);
+        // Runs in the caller's pool if there is one, otherwise forks into the common pool
+        int[] votes = task.invoke();
+        System.arraycopy(votes, 0, tallies, 0, count);
+    }
+
+    /**
+     * Add the votes of a number of members to the tallies.
+     * @param choices Options a member who doesn't know guesses among, the first choiceCount of them
+     */
+    private static void tally(int members, SplittableRandom random, double knows, int correct,
+                              int[] choices, int choiceCount, int[] tallies) {
+        // One draw per member: the high half decides whether they know, the low half what they guess
+        long knowsBelow = (long) (knows * (1L << 32));
+        for (int i = 0; i < members; i++) {
+            long draw = random.nextLong();
+            int vote = choices[(int) (((draw & 0xFFFFFFFFL) * choiceCount) >>> 32)];
+            // All ones if the member knows. Knowing is a coin toss no branch predictor
+            // gets right, so the vote is picked with the mask instead of a branch
+            int knowsMask = (int) (((draw >>> 32) - knowsBelow) >> 63);
+            tallies[vote + ((correct - vote) & knowsMask)]++;
+        }
+    }
+
+    /**
+     * Turn vote tallies into whole percentages that add up to 100, by the
+     * largest remainder: every option gets its share rounded down, and the
+     * points left over go to the options that lost the most to rounding.
+     * @param tallies Votes per option ordinal
+     * @param count Number of options
+     * @param percentages Filled with the percentage per option ordinal
+     */
+    public static void toPercentages(int[] tallies, int count, int[] percentages) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += tallies[i];
+        }
+        if (total == 0) {
+            Arrays.fill(percentages, 0, count, 0);
+            return;
+        }
+        int left = 100;
+        for (int i = 0; i < count; i++) {
+            percentages[i] = (int) (tallies[i] * 100L / total);
+            left -= percentages[i];
+        }
+        while (left > 0) {
+            int best = -1;
+            long bestRemainder = -1;
+            for (int i = 0; i < count; i++) {
+                // Negative once the option has had its point
+                long remainder = tallies[i] * 100L - percentages[i] * total;
+                if (remainder > bestRemainder) {
+                    best = i;
+                    bestRemainder = remainder;
+                }
+            }
+            percentages[best]++;
+            left--;
+        }
+    }
+
+    /**
+     * Tallies the votes of a number of members, splitting them in half until few enough.
+     */
+    private static class VoteTask extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int members;
+        private final SplittableRandom random;
+        private final double knows;
+        private final int correct;
+        private final int[] choices;
+        private final int choiceCount;
+        private final int count;
+
+        VoteTask(int members, SplittableRandom random, double knows, int correct, int[] choices, int choiceCount,
+                 int count) {
+            this.members = members;
+            this.random = random;
+            this.knows = knows;
+            this.correct = correct;
+            this.choices = choices;
+            this.choiceCount = choiceCount;
+            this.count = count;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (members > LEAF_MEMBERS) {
+                int half = members >>> 1;
+                // Split before forking, so each half gets the same stream on every run
+                VoteTask left = new VoteTask(half, random.split(), knows, correct, choices, choiceCount, count);
+                left.fork();
+                int[] tallies = new VoteTask(members - half, random, knows, correct, choices, choiceCount, count)
+                        .compute();
+                int[] other = left.join();
+                for (int i = 0; i < count; i++) {
+                    tallies[i] += other[i];
+                }
+                return tallies;
+            }
+
+            int[] tallies = new int[count];
+            tally(members, random, knows, correct, choices, choiceCount, tallies);
+            return tallies;
+        }
+    }
+}
@@ -0,0 +1,409 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Offline pipeline that re-levels a question bank from how players actually did.
+ *
+ * Answer outcomes are streamed in one pass, counting answers and correct
+ * answers per question in arrays sized by the bank, so memory does not grow
+ * with the number of events. Two inputs are understood:
+ * <ul>
+ *   <li>answer logs, one event per line: {@code <question id in hex>,<1|0>},
+ *       read in parallel from memory-mapped segments without allocating per line;</li>
+ *   <li>{@link QuestionAnalytics} CSV exports, whose totals are added.</li>
+ * </ul>
+ *
+ * Each question with enough answers gets its correctness rate and a 95%
+ * Wilson score interval. Those questions are ranked by the centre of the
+ * interval, which pulls sparsely answered questions towards 50%, with a
+ * parallel sort, and dealt back into the levels they came from: the easiest
+ * into level 1, keeping every level's size. Questions without enough data
+ * keep their level. The result is written as a JSON-lines bank, or a
+ * question pack if the output ends in .mqp.
+ *
+ * Usage: java DifficultyRecalibrator [-bank FILE] [-min N] [-report FILE] OUTPUT EVENTS...
+ */
+public class DifficultyRecalibrator {
+
+    private static final double Z = 1.96; // 95% confidence
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final int MAX_LINE = 4096;
+
+    private final List<Question> questions = new ArrayList<>();
+    private final int[] levels;
+    private final int levelCount;
+    // Open-addressing index from question ID to position in the lists above
+    private final long[] idKeys;
+    private final int[] idSlots;
+    private final long[] answers;
+    private final long[] correct;
+    private long events;
+    private long skipped;
+
+    public DifficultyRecalibrator(QuestionBank bank) {
+        levelCount = bank.getLevelCount();
+        List<Integer> levelList = new ArrayList<>();
+        for (int level = 1; level <= levelCount; level++) {
+            for (Question question : bank.getQuestions(level)) {
+                questions.add(question);
+                levelList.add(level);
+            }
+        }
+        levels = levelList.stream().mapToInt(Integer::intValue).toArray();
+        answers = new long[questions.size()];
+        correct = new long[questions.size()];
+
+        int capacity = Integer.highestOneBit(Math.max(2, questions.size() * 2 - 1)) << 1;
+        idKeys = new long[capacity];
+        idSlots = new int[capacity];
+        Arrays.fill(idSlots, -1);
+        for (int i = 0; i < questions.size(); i++) {
+            long id = questions.get(i).getId();
+            int slot = hash(id) & (capacity - 1);
+            while (idSlots[slot] >= 0 && idKeys[slot] != id) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            idKeys[slot] = id;
+            idSlots[slot] = i;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path bankFile = null;
+        Path reportFile = null;
+        long minAnswers = 30;
+        int arg = 0;
+        while (arg < args.length && args[arg].startsWith("-")) {
+            switch (args[arg]) {
+                case "-bank":
+                    bankFile = Path.of(args[arg + 1]);
+                    break;
+                case "-min":
+                    minAnswers = Long.parseLong(args[arg + 1]);
+                    break;
+                case "-report":
+                    reportFile = Path.of(args[arg + 1]);
+                    break;
+                default:
+                    usage();
+            }
+            arg += 2;
+        }
+        if (args.length - arg < 2) {
+            usage();
+        }
+        Path output = Path.of(args[arg++]);
+
+        long start = System.nanoTime();
+        QuestionBank bank = bankFile != null ? QuestionBank.fromFile(bankFile) : QuestionBank.shared();
+        DifficultyRecalibrator recalibrator = new DifficultyRecalibrator(bank);
+        for (; arg < args.length; arg++) {
+            recalibrator.read(Path.of(args[arg]));
+        }
+        int[] newLevels = recalibrator.relevel(minAnswers);
+        recalibrator.writeBank(newLevels, output);
+        if (reportFile != null) {
+            try (PrintStream report = new PrintStream(Files.newOutputStream(reportFile), false, StandardCharsets.UTF_8)) {
+                recalibrator.printReport(newLevels, report);
+            }
+        }
+        recalibrator.printSummary(newLevels, minAnswers, System.out);
+        System.out.printf("Done in %.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java DifficultyRecalibrator [-bank FILE] [-min N] [-report FILE] OUTPUT EVENTS...");
+        System.exit(1);
+    }
+
+    /**
+     * Add the outcomes in an answer log or analytics export.
+     */
+    public void read(Path path) throws IOException {
+        String firstLine;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            firstLine = reader.readLine();
+            if (QuestionAnalytics.CSV_HEADER.equals(firstLine)) {
+                readAnalytics(reader);
+                return;
+            }
+        }
+        readLog(path);
+    }
+
+    private void readAnalytics(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            List<String> fields = QuestionImporter.splitCsv(line);
+            int index = indexOf(Long.parseUnsignedLong(fields.get(0), 16));
+            long answered = Long.parseLong(fields.get(2));
+            if (index < 0) {
+                skipped += answered;
+                continue;
+            }
+            answers[index] += answered;
+            correct[index] += Long.parseLong(fields.get(3));
+            events += answered;
+        }
+    }
+
+    /**
+     * Count an answer log in parallel, one memory-mapped segment per task,
+     * each with its own counters, merged at the end.
+     */
+    private void readLog(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long segments = (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+            Counts total = LongStream.range(0, segments).parallel()
+                    .mapToObj(segment -> countSegment(channel, size, segment * SEGMENT_SIZE))
+                    .reduce(Counts::merge)
+                    .orElse(new Counts(questions.size()));
+            for (int i = 0; i < answers.length; i++) {
+                answers[i] += total.answers[i];
+                correct[i] += total.correct[i];
+            }
+            events += total.events;
+            skipped += total.skipped;
+        }
+    }
+
+    /**
+     * Count the lines that start in [start, start + SEGMENT_SIZE).
+     * A line crossing the end is finished from the overlap mapped after it.
+     */
+    private Counts countSegment(FileChannel channel, long size, long start) {
+        Counts counts = new Counts(questions.size());
+        long end = Math.min(size, start + SEGMENT_SIZE);
+        long mapped = Math.min(size, end + MAX_LINE);
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, mapped - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int limit = (int) (mapped - start);
+        int segmentEnd = (int) (end - start);
+        int position = 0;
+        if (start > 0) {
+            // The line in progress belongs to the previous segment
+            try {
+                byte before = channel.map(FileChannel.MapMode.READ_ONLY, start - 1, 1).get(0);
+                if (before != '\n') {
+                    while (position < limit && buffer.get(position) != '\n') {
+                        position++;
+                    }
+                    position++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        while (position < segmentEnd) {
+            long id = 0;
+            int digits = 0;
+            byte b;
+            while (position < limit && (b = buffer.get(position)) != ',' && b != '\n') {
+                int digit = Character.digit(b, 16);
+                if (digit < 0 || digits == 16) {
+                    digits = -1;
+                    break;
+                }
+                id = id << 4 | digit;
+                digits++;
+                position++;
+            }
+            boolean outcome = false;
+            boolean valid = digits > 0 && position < limit && buffer.get(position) == ',';
+            if (valid) {
+                position++;
+                b = position < limit ? buffer.get(position) : 0;
+                if (b == '1' || b == 't' || b == 'T') {
+                    outcome = true;
+                } else if (b != '0' && b != 'f' && b != 'F') {
+                    valid = false;
+                }
+            }
+            while (position < limit && buffer.get(position) != '\n') {
+                position++;
+            }
+            position++;
+
+            if (!valid) {
+                continue; // header or malformed line
+            }
+            int index = indexOf(id);
+            if (index < 0) {
+                counts.skipped++;
+                continue;
+            }
+            counts.answers[index]++;
+            if (outcome) {
+                counts.correct[index]++;
+            }
+            counts.events++;
+        }
+        return counts;
+    }
+
+    /**
+     * Rank the questions with enough answers and deal them back into the levels.
+     * @return New level of every question, in bank order
+     */
+    public int[] relevel(long minAnswers) {
+        int[] newLevels = levels.clone();
+        int[] slotsPerLevel = new int[levelCount + 2];
+
+        // Sort key: easiness (Wilson centre) in the high bits, question position in the low ones
+        long[] keys = new long[questions.size()];
+        int ranked = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            if (answers[i] >= minAnswers && answers[i] > 0) {
+                double easiness = wilsonCentre(correct[i], answers[i]);
+                long score = (long) ((1.0 - easiness) * Integer.MAX_VALUE);
+                keys[ranked++] = score << 32 | i;
+                slotsPerLevel[levels[i]]++;
+            }
+        }
+        long[] order = Arrays.copyOf(keys, ranked);
+        Arrays.parallelSort(order);
+
+        int level = 1;
+        for (long key : order) {
+            while (slotsPerLevel[level] == 0) {
+                level++;
+            }
+            slotsPerLevel[level]--;
+            newLevels[(int) key] = level;
+        }
+        return newLevels;
+    }
+
+    /**
+     * Write the re-levelled bank as JSON lines, or as a pack for a .mqp output.
+     */
+    public void writeBank(int[] newLevels, Path output) throws IOException {
+        boolean pack = output.getFileName().toString().endsWith(".mqp");
+        Path jsonLines = pack ? Files.createTempFile("recalibrated", ".jsonl") : output;
+        try (BufferedWriter out = Files.newBufferedWriter(jsonLines, StandardCharsets.UTF_8)) {
+            for (int level = 1; level <= levelCount; level++) {
+                for (int i = 0; i < questions.size(); i++) {
+                    if (newLevels[i] == level) {
+                        out.write(QuestionImporter.formatJson(questions.get(i), level));
+                        out.newLine();
+                    }
+                }
+            }
+        }
+        if (pack) {
+            try {
+                QuestionPack.compile(QuestionBank.fromFile(jsonLines), output);
+            } finally {
+                Files.delete(jsonLines);
+            }
+        }
+    }
+
+    /**
+     * One CSV line per question: id, old and new level, counts, rate and interval.
+     */
+    public void printReport(int[] newLevels, PrintStream out) {
+        out.println("id,old_level,new_level,answers,correct,rate,low,high,question");
+        for (int i = 0; i < questions.size(); i++) {
+            double rate = answers[i] == 0 ? 0 : (double) correct[i] / answers[i];
+            double[] interval = wilsonInterval(correct[i], answers[i]);
+            out.printf("%s,%d,%d,%d,%d,%.4f,%.4f,%.4f,%s%n", Long.toHexString(questions.get(i).getId()),
+                    levels[i], newLevels[i], answers[i], correct[i], rate, interval[0], interval[1],
+                    QuestionImporter.quoteCsv(questions.get(i).getQuestion()));
+        }
+    }
+
+    private void printSummary(int[] newLevels, long minAnswers, PrintStream out) {
+        int calibrated = 0;
+        int moved = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            calibrated += answers[i] >= minAnswers && answers[i] > 0 ? 1 : 0;
+            moved += newLevels[i] != levels[i] ? 1 : 0;
+        }
+        out.printf("Events:     %,d counted, %,d for unknown questions%n", events, skipped);
+        out.printf("Questions:  %,d, %,d with at least %d answers, %,d moved%n",
+                questions.size(), calibrated, minAnswers, moved);
+    }
+
+    /**
+     * Centre of the Wilson score interval of a success rate.
+     */
+    static double wilsonCentre(long successes, long trials) {
+        double p = (double) successes / trials;
+        double z2 = Z * Z;
+        return (p + z2 / (2 * trials)) / (1 + z2 / trials);
+    }
+
+    /**
+     * 95% Wilson score interval of a success rate, {low, high}.
+     */
+    static double[] wilsonInterval(long successes, long trials) {
+        if (trials == 0) {
+            return new double[] {0, 1};
+        }
+        double p = (double) successes / trials;
+        double z2 = Z * Z;
+        double centre = wilsonCentre(successes, trials);
+        double half = Z * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials)) / (1 + z2 / trials);
+        return new double[] {Math.max(0, centre - half), Math.min(1, centre + half)};
+    }
+
+    private int indexOf(long id) {
+        int mask = idKeys.length - 1;
+        for (int slot = hash(id) & mask; idSlots[slot] >= 0; slot = (slot + 1) & mask) {
+            if (idKeys[slot] == id) {
+                return idSlots[slot];
+            }
+        }
+        return -1;
+    }
+
+    private static int hash(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    /**
+     * Counters of one segment.
+     */
+    private static final class Counts {
+
+        final long[] answers;
+        final long[] correct;
+        long events;
+        long skipped;
+
+        Counts(int questions) {
+            answers = new long[questions];
+            correct = new long[questions];
+        }
+
+        Counts merge(Counts other) {
+            for (int i = 0; i < answers.length; i++) {
+                answers[i] += other.answers[i];
+                correct[i] += other.correct[i];
+            }
+            events += other.events;
+            skipped += other.skipped;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts the game for remote players over TCP like {@link GameServer}, but
+ * plays every connection on a single selector thread. Each game is driven
+ * through {@link Game#onInput(String)} one line at a time and never waits,
+ * so an idle player costs a few kilobytes of heap and no thread at all.
+ * Question timers hand their time-up over to the selector thread.
+ *
+ * Games are not journaled. Final results go to the {@link Leaderboard} of
+ * the millionaire.leaderboard property (empty to turn it off), and games
+ * are recorded like on {@link GameServer} when millionaire.recordings is set.
+ *
+ * Usage: java EventLoopServer [port] [question file]
+ */
+public class EventLoopServer {
+
+    // Longest line a player may type; anything beyond is dropped
+    private static final int MAX_LINE = InputReader.MAX_LINE;
+
+    private final QuestionBank questionBank;
+    private Leaderboard leaderboard;
+    private PrizeLadder ladder = PrizeLadder.configured();
+    private Path recordings = SessionRecording.configuredDirectory();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    // Sessions whose question time ran out, for the selector thread
+    private final Queue<Session> timedOut = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(4096);
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+
+    public EventLoopServer(QuestionBank questionBank) {
+        this.questionBank = questionBank;
+        ladder.checkQuestions(questionBank);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT;
+        QuestionBank bank = args.length > 1 ? QuestionBank.fromFile(Path.of(args[1])) : QuestionBank.shared();
+        EventLoopServer server = new EventLoopServer(bank);
+        String leaderboardFile = System.getProperty("millionaire.leaderboard", "millionaire-leaderboard.dat");
+        if (!leaderboardFile.isEmpty()) {
+            Leaderboard leaderboard = Leaderboard.open(Path.of(leaderboardFile), 100);
+            leaderboard.startSnapshots(30, TimeUnit.SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(leaderboard::snapshot));
+            server.setLeaderboard(leaderboard);
+        }
+        server.bind(new InetSocketAddress(port));
+        System.out.println("Millionaire event loop server listening on port " + server.getPort());
+        server.serve();
+    }
+
+    /**
+     * Start listening. Use port 0 for any free port.
+     */
+    public void bind(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Report every finished game to the given leaderboard.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * Play new sessions on the given prize ladder, see {@link GameServer#setLadder}.
+     */
+    public void setLadder(PrizeLadder ladder) {
+        ladder.checkQuestions(questionBank);
+        this.ladder = ladder;
+    }
+
+    /**
+     * Record every game into the given directory, or none if null.
+     */
+    public void setRecordings(Path directory) {
+        this.recordings = directory;
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Run the event loop on this thread until the server is closed.
+     */
+    public void serve() {
+        try {
+            while (serverChannel.isOpen()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Session session = (Session) key.attachment();
+                        if (key.isWritable()) {
+                            session.writePending();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            session.read();
+                        }
+                    }
+                }
+                Session session;
+                while ((session = timedOut.poll()) != null) {
+                    session.timeUp();
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // Closed
+        } catch (IOException e) {
+            System.err.println("Event loop failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop accepting connections and hang up on every player.
+     */
+    public void close() throws IOException {
+        serverChannel.close();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Session) {
+                ((Session) key.attachment()).close();
+            }
+        }
+        selector.close();
+    }
+
+    private void accept() {
+        SocketChannel channel;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+        } catch (IOException e) {
+            System.err.println("Accept failed: " + e.getMessage());
+            return;
+        }
+        Session session = new Session(channel);
+        try {
+            session.key = channel.register(selector, SelectionKey.OP_READ, session);
+        } catch (IOException e) {
+            session.close();
+            return;
+        }
+        activeSessions.incrementAndGet();
+        session.send(session.game.open());
+    }
+
+    /**
+     * One connection and its game. Only touched by the selector thread.
+     */
+    private final class Session {
+
+        private final SocketChannel channel;
+        private final Game game;
+        private SelectionKey key;
+        // Bytes of the line being typed
+        private byte[] line;
+        private int lineLength;
+        // Output the connection has not taken yet
+        private ByteBuffer unsent;
+        private boolean closed;
+
+        Session(SocketChannel channel) {
+            this.channel = channel;
+            this.game = new Game(questionBank, null, ladder);
+            game.setTerminal(GameServer.LINE_SEPARATOR, GameServer.TERMINAL_ROWS);
+            game.setTimeUpHandler(() -> {
+                timedOut.add(this);
+                selector.wakeup();
+            });
+            if (leaderboard != null) {
+                game.setLeaderboard(leaderboard, null);
+            }
+            if (recordings != null) {
+                game.record(recordings);
+            }
+        }
+
+        void read() {
+            readBuffer.clear();
+            int read;
+            try {
+                read = channel.read(readBuffer);
+            } catch (IOException e) {
+                read = -1;
+            }
+            if (read < 0) {
+                close(); // player disconnected
+                return;
+            }
+            readBuffer.flip();
+            while (readBuffer.hasRemaining() && !closed) {
+                byte b = readBuffer.get();
+                if (b == '\n') {
+                    int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+                    String text = new String(line == null ? new byte[0] : line, 0, length, StandardCharsets.UTF_8);
+                    lineLength = 0;
+                    if (line != null && line.length > 64) {
+                        line = null; // long lines are rare, don't keep their buffer
+                    }
+                    handle(text);
+                } else if (lineLength < MAX_LINE) {
+                    if (line == null || lineLength == line.length) {
+                        line = line == null ? new byte[64] : Arrays.copyOf(line, Math.min(MAX_LINE, line.length * 2));
+                    }
+                    line[lineLength++] = b;
+                }
+            }
+        }
+
+        void timeUp() {
+            if (!closed) {
+                try {
+                    send(game.onTimeUp());
+                } catch (RuntimeException e) {
+                    System.err.println("Session ended with an error: " + e);
+                    close();
+                }
+            }
+        }
+
+        private void handle(String text) {
+            try {
+                send(game.onInput(text));
+            } catch (RuntimeException e) {
+                System.err.println("Session ended with an error: " + e);
+                close();
+            }
+        }
+
+        /**
+         * Write a frame, keeping whatever the connection can't take now for later.
+         */
+        void send(byte[] frame) {
+            if (frame.length > 0) {
+                ByteBuffer bytes = ByteBuffer.wrap(frame);
+                if (unsent == null) {
+                    unsent = bytes;
+                } else {
+                    ByteBuffer joined = ByteBuffer.allocate(unsent.remaining() + bytes.remaining());
+                    unsent = joined.put(unsent).put(bytes).flip();
+                }
+            }
+            writePending();
+        }
+
+        void writePending() {
+            if (closed) {
+                return;
+            }
+            if (unsent != null) {
+                try {
+                    channel.write(unsent);
+                } catch (IOException e) {
+                    close();
+                    return;
+                }
+                if (unsent.hasRemaining()) {
+                    // Stop reading until the player takes what is already sent
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                unsent = null;
+            }
+            if (game.isFinished()) {
+                close();
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            game.close();
+            if (key != null) {
+                key.cancel();
+                activeSessions.decrementAndGet();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+}
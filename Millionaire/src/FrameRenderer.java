@@ -0,0 +1,282 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frame-buffered terminal renderer.
+ *
+ * Everything printed through {@link TUI} is collected into the current frame
+ * and only reaches the terminal on {@link #flush()}, as a single write.
+ * Within a frame new text is simply appended. When a new frame replaces the
+ * previous one ({@link #clearScreen()}), only the lines that changed are
+ * rewritten, using cursor addressing. Frames that fit on the terminal are
+ * compared from the top of the screen. Frames taller than the terminal have
+ * scrolled, so only their last lines are on screen; these are compared
+ * upwards from the bottom row, and anything above them is cleared. A change
+ * between a frame that fits and one that doesn't is a full redraw.
+ *
+ * Lines are compared as a whole, because they carry embedded color codes
+ * that make per-cell comparison unreliable.
+ */
+public class FrameRenderer {
+
+    private static final String CLEAR = "\033[H\033[2J";
+    private static final String CLEAR_TO_END_OF_LINE = "\033[K";
+    private static final String CLEAR_TO_END_OF_SCREEN = "\033[J";
+    private static final String CLEAR_TO_START_OF_SCREEN = "\033[1J";
+
+    private final OutputStream out;
+    private final String lineSeparator;
+    private int terminalRows;
+
+    // Frame being built: completed lines plus the unterminated last line
+    private final List<String> lines = new ArrayList<>();
+    private final StringBuilder partial = new StringBuilder();
+
+    // What the terminal currently shows, in the same shape
+    private final List<String> shown = new ArrayList<>();
+    private String shownPartial = "";
+    private boolean newFrame = true;
+    private boolean anythingShown = false;
+
+    private final StringBuilder output = new StringBuilder(8192);
+
+    // Question on screen, for the render events
+    private int level;
+    private long questionId;
+
+    /**
+     * Renderer for a local terminal. The height comes from the
+     * millionaire.rows property or the LINES variable, 24 if neither is set.
+     */
+    public FrameRenderer(OutputStream out) {
+        this(out, System.lineSeparator(), defaultRows());
+    }
+
+    /**
+     * @param out Destination of the rendered frames
+     * @param lineSeparator Line break sent to the terminal ("\r\n" for network clients)
+     * @param terminalRows Terminal height; of frames taller than this only the last rows are kept up to date
+     */
+    public FrameRenderer(OutputStream out, String lineSeparator, int terminalRows) {
+        this.out = out;
+        this.lineSeparator = lineSeparator;
+        this.terminalRows = terminalRows;
+    }
+
+    private static int defaultRows() {
+        String rows = System.getProperty("millionaire.rows", System.getenv("LINES"));
+        try {
+            return rows == null ? 24 : Integer.parseInt(rows.trim());
+        } catch (NumberFormatException e) {
+            return 24;
+        }
+    }
+
+    public void setTerminalRows(int terminalRows) {
+        this.terminalRows = terminalRows;
+    }
+
+    /**
+     * Append text to the current frame. Line breaks start new lines.
+     */
+    public void print(String text) {
+        int start = 0;
+        int newline;
+        while ((newline = text.indexOf('\n', start)) >= 0) {
+            partial.append(text, start, newline);
+            lines.add(partial.toString());
+            partial.setLength(0);
+            start = newline + 1;
+        }
+        partial.append(text, start, text.length());
+    }
+
+    public void println(String text) {
+        print(text);
+        println();
+    }
+
+    public void println() {
+        lines.add(partial.toString());
+        partial.setLength(0);
+    }
+
+    /**
+     * Append complete lines, which must not contain line breaks.
+     * They are kept as they are rather than copied, so pre-rendered
+     * lines cost nothing to draw and compare again.
+     */
+    public void printLines(String[] block) {
+        int from = 0;
+        if (partial.length() > 0 && block.length > 0) {
+            println(block[0]);
+            from = 1;
+        }
+        for (int i = from; i < block.length; i++) {
+            lines.add(block[i]);
+        }
+    }
+
+    /**
+     * Start a new frame. The old one stays on screen until the next flush.
+     */
+    public void clearScreen() {
+        lines.clear();
+        partial.setLength(0);
+        newFrame = true;
+    }
+
+    /**
+     * Record a line the terminal echoed itself while the player typed it,
+     * so the next flush knows it is already on screen.
+     */
+    public void inputEcho(String line) {
+        partial.append(line);
+        println();
+        if (!newFrame) {
+            shown.add(shownPartial + line);
+            shownPartial = "";
+        }
+    }
+
+    /**
+     * Free the write buffer until the next flush. Renderers of sessions that
+     * sit idle between frames call this, so they only hold what is on screen.
+     */
+    public void trimBuffer() {
+        output.setLength(0);
+        output.trimToSize();
+    }
+
+    /**
+     * Tell which question is on screen, so frame render events can be
+     * matched with it. Level 0 means no question.
+     */
+    public void setQuestion(int level, long questionId) {
+        this.level = level;
+        this.questionId = questionId;
+    }
+
+    /**
+     * Send the pending changes to the terminal in one write.
+     */
+    public void flush() {
+        GameEvents.ScreenRender event = new GameEvents.ScreenRender();
+        event.begin();
+        long start = System.nanoTime();
+        output.setLength(0);
+        String current = partial.toString();
+        if (!newFrame) {
+            appendContinuation(current);
+        } else if (anythingShown && lines.size() < terminalRows && shown.size() < terminalRows) {
+            appendDiff(current);
+        } else if (anythingShown && terminalRows > 0 && lines.size() >= terminalRows && shown.size() >= terminalRows) {
+            appendScrolledDiff(current);
+        } else {
+            appendFullRedraw(current);
+        }
+
+        shown.clear();
+        shown.addAll(lines);
+        shownPartial = current;
+        newFrame = false;
+        anythingShown = true;
+
+        int written = 0;
+        if (output.length() > 0) {
+            try {
+                byte[] bytes = output.toString().getBytes(StandardCharsets.UTF_8);
+                written = bytes.length;
+                out.write(bytes);
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        GameMetrics.RENDER.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.level = level;
+            event.questionId = questionId;
+            event.bytes = written;
+            event.commit();
+        }
+    }
+
+    /**
+     * Same frame as last flush: write only what was appended since.
+     */
+    private void appendContinuation(String current) {
+        if (lines.size() == shown.size()) {
+            output.append(current, shownPartial.length(), current.length());
+            return;
+        }
+        output.append(lines.get(shown.size()), shownPartial.length(), lines.get(shown.size()).length());
+        for (int i = shown.size() + 1; i < lines.size(); i++) {
+            output.append(lineSeparator).append(lines.get(i));
+        }
+        output.append(lineSeparator).append(current);
+    }
+
+    /**
+     * New frame that fits on screen: rewrite the lines that differ, then the
+     * last line to leave the cursor after it, then clear anything below.
+     */
+    private void appendDiff(String current) {
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (i >= shown.size() || !line.equals(shown.get(i))) {
+                moveTo(i).append(line).append(CLEAR_TO_END_OF_LINE);
+            }
+        }
+        moveTo(lines.size()).append(current).append(CLEAR_TO_END_OF_LINE).append(CLEAR_TO_END_OF_SCREEN);
+    }
+
+    /**
+     * New frame where both frames are taller than the terminal: the screen
+     * shows the last terminalRows lines of each, ending on the cursor's row.
+     * Walk those rows from the top, rewriting the ones that differ, with
+     * moves relative to the cursor so it doesn't matter where the terminal put them.
+     */
+    private void appendScrolledDiff(String current) {
+        int top = terminalRows - 1;
+        int newFirst = lines.size() - top;
+        int oldFirst = shown.size() - top;
+        // The top row is rewritten anyway, after clearing whatever a taller terminal shows above it
+        output.append('\r');
+        moveUp(top).append(CLEAR_TO_START_OF_SCREEN);
+        int row = 0;
+        for (int i = 0; i < terminalRows; i++) {
+            String line = newFirst + i == lines.size() ? current : lines.get(newFirst + i);
+            String was = oldFirst + i == shown.size() ? shownPartial : shown.get(oldFirst + i);
+            if (i == 0 || i == top || !line.equals(was)) {
+                moveDown(i - row).append('\r').append(line).append(CLEAR_TO_END_OF_LINE);
+                row = i;
+            }
+        }
+    }
+
+    private void appendFullRedraw(String current) {
+        output.append(CLEAR);
+        for (String line : lines) {
+            output.append(line).append(lineSeparator);
+        }
+        output.append(current);
+    }
+
+    private StringBuilder moveTo(int row) {
+        return output.append("\033[").append(row + 1).append(";1H");
+    }
+
+    private StringBuilder moveUp(int rows) {
+        return rows > 0 ? output.append("\033[").append(rows).append('A') : output;
+    }
+
+    private StringBuilder moveDown(int rows) {
+        return rows > 0 ? output.append("\033[").append(rows).append('B') : output;
+    }
+}
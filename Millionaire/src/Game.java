@@ -1,52 +1,544 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main game controller for the Millionaire game.
  * Manages game state, flow, and player interactions.
+ *
+ * The game is a state machine driven by input events: every line the player
+ * enters (and the question timer running out) moves it from one {@link State}
+ * to the next and draws the resulting screen, without ever waiting. It can
+ * be driven two ways:
+ * <ul>
+ *   <li>{@link #start()} plays the whole game on the calling thread, reading
+ *       lines from the game's {@link InputReader} and drawing to the thread's
+ *       renderer, as the console and the threaded server do;</li>
+ *   <li>{@link #open()}, {@link #onInput(String)} and {@link #onTimeUp()} take
+ *       one event each and return the output frame's bytes, so a single event
+ *       loop can hold any number of idle games, each just a heap object.</li>
+ * </ul>
  */
 public class Game {
     
-    private QuestionBank questionBank;
+    /**
+     * What the game is waiting for.
+     */
+    public enum State {
+        /** Not started yet. */
+        NEW,
+        /** Rules shown, waiting for ENTER. */
+        WELCOME,
+        /** Question shown, waiting for an answer, LIFELINE or WALK. */
+        QUESTION,
+        /** Lifeline menu shown, waiting for a choice. */
+        LIFELINE_MENU,
+        /** Answer result shown, waiting for ENTER. */
+        ANSWERED,
+        /** Walk away shown, waiting for ENTER. */
+        WALKED_AWAY,
+        /** Final screen shown, waiting for the player's name for the leaderboard. */
+        NAME_ENTRY,
+        /** Game over, nothing more to read. */
+        FINISHED
+    }
+    
+    private GameEngine engine;
+    private PrizeLadder ladder;
     private Lifelines lifelines;
-    private int currentLevel;
-    private int currentPrize;
-    private boolean gameOver;
-    private boolean gameWon;
-    private Scanner scanner;
+    private InputReader input;
+    // Time to answer each question; 0 for untimed play
+    private long questionTimeLimitMillis;
+    private TimerWheel.Timeout questionTimer;
+    private long questionDeadlineNanos;
+    private long questionShownNanos;
+    // Code the player can give to resume after a restart; null when not journaled
+    private String resumeCode;
+    // Spectators voting in Ask the Audience, if any
+    private LiveAudience liveAudience;
+    private String showCode;
+    // Where final results are reported; null to keep no record
+    private Leaderboard leaderboard;
+    private String playerName;
+    
+    private State state = State.NEW;
+    private GameEvents.GameEnd gameEnd;
+    // Level and checkpoint flag of the question being played
+    private int questionLevel;
+    private boolean questionIsCheckpoint;
+    // Called when the question time runs out; null to wake up the input reader
+    private Runnable timeUpHandler;
+    
+    // Seed of every random source of the game, kept for recordings
+    private final long seed;
+    private QuestionAnalytics analytics = QuestionAnalytics.shared();
+    private SessionRecording.Recorder recorder;
+    private boolean resumed;
+    
+    // Frames returned by the event methods are drawn here
+    private FrameRenderer frameRenderer;
+    private FrameCapture frameCapture;
+    private String frameLineSeparator = System.lineSeparator();
+    private int frameRows = 24;
+    private boolean headless;
     
     public Game() {
-        this.questionBank = new QuestionBank();
-        this.lifelines = new Lifelines();
-        this.currentLevel = 1;
-        this.currentPrize = 0;
-        this.gameOver = false;
-        this.gameWon = false;
-        this.scanner = new Scanner(System.in);
+        this(QuestionBank.shared());
+    }
+    
+    /**
+     * Create a game drawing its questions from the given bank.
+     * The bank is only read, so many games can share one.
+     */
+    public Game(QuestionBank questionBank) {
+        this(questionBank, InputReader.current());
+    }
+    
+    /**
+     * Create a game reading the player's input from the given reader,
+     * e.g. one on a network connection. Output goes to the current thread's
+     * renderer, see {@link TUI#setRenderer}. Games driven only through the
+     * event methods need no reader and may pass null.
+     */
+    public Game(QuestionBank questionBank, InputReader input) {
+        this(questionBank, input, PrizeLadder.configured());
+    }
+    
+    /**
+     * Create a game played on the given prize ladder.
+     */
+    public Game(QuestionBank questionBank, InputReader input, PrizeLadder ladder) {
+        this(questionBank, input, ladder, ThreadLocalRandom.current().nextLong());
+    }
+    
+    /**
+     * Create a game whose random sources grow from the given seed, see
+     * {@link SessionRandom}. The same seed, bank and ladder with the same
+     * input play the same game again.
+     */
+    public Game(QuestionBank questionBank, InputReader input, PrizeLadder ladder, long seed) {
+        SessionRandom random = new SessionRandom(seed);
+        this.ladder = ladder;
+        this.seed = seed;
+        this.lifelines = new Lifelines(random, true);
+        this.lifelines.setAnalytics(analytics);
+        this.engine = new GameEngine(new QuestionCursor(questionBank, random.questions()), lifelines, ladder);
+        this.input = input;
+        this.questionTimeLimitMillis = 1000L * Integer.getInteger("millionaire.questionSeconds", 0);
+    }
+    
+    /**
+     * Give the player a limited time for each question (competitive mode).
+     * Running out of time counts as a wrong answer.
+     * @param limit Time per question; 0 for untimed play
+     */
+    public void setQuestionTimeLimit(long limit, TimeUnit unit) {
+        this.questionTimeLimitMillis = unit.toMillis(limit);
+    }
+    
+    /**
+     * Count answers and lifelines in the given analytics (null for none).
+     * Defaults to {@link QuestionAnalytics#shared()}.
+     */
+    public void setAnalytics(QuestionAnalytics analytics) {
+        this.analytics = analytics;
+        lifelines.setAnalytics(analytics);
+    }
+    
+    /**
+     * Record the game into a new file in the given directory, so it can be
+     * replayed with {@link SessionReplay}. Call before the game starts.
+     * @return The recording file, written when the game ends or is closed
+     */
+    public Path record(Path directory) {
+        Path file = directory.resolve(String.format("session-%d-%016x.rec", System.currentTimeMillis(), seed));
+        record(new SessionRecording.Recorder(file, seed, ladder, questionTimeLimitMillis));
+        return file;
+    }
+    
+    void record(SessionRecording.Recorder recorder) {
+        if (state != State.NEW || resumed) {
+            throw new IllegalStateException("Only new games can be recorded");
+        }
+        this.recorder = recorder;
+    }
+    
+    /**
+     * Record this game in a journal so it can be resumed after a restart.
+     * @param sessionId Id of the new game in the journal
+     */
+    public void enableJournal(SessionJournal journal, long sessionId) {
+        engine.setJournal(journal, sessionId, true);
+        resumeCode = formatResumeCode(sessionId);
+    }
+    
+    /**
+     * Continue a game recovered from the journal, and keep recording it there.
+     */
+    public void resume(SessionJournal journal, SessionJournal.SessionState state) {
+        if (recorder != null) {
+            throw new IllegalStateException("Recorded games can't be resumed");
+        }
+        engine.restore(state);
+        resumed = true;
+        engine.setJournal(journal, state.getSessionId(), false);
+        resumeCode = formatResumeCode(state.getSessionId());
+    }
+    
+    /**
+     * Report the result to a leaderboard when the game ends.
+     * @param playerName Name to report under, or null to ask the player at the end
+     */
+    public void setLeaderboard(Leaderboard leaderboard, String playerName) {
+        this.leaderboard = leaderboard;
+        this.playerName = playerName;
+    }
+    
+    /**
+     * Let the given spectators vote when the player asks the audience, see
+     * {@link Lifelines#setLiveAudience}. Asking then waits out the voting
+     * time, with the question countdown held meanwhile, so only games played
+     * through {@link #start()} should have spectators.
+     * @param showCode Code spectators join the game with, shown to the player
+     */
+    public void setLiveAudience(LiveAudience audience, String showCode, long votingTime, TimeUnit unit) {
+        lifelines.setLiveAudience(audience, votingTime, unit);
+        this.liveAudience = audience;
+        this.showCode = showCode;
+    }
+    
+    public static String formatResumeCode(long sessionId) {
+        return Long.toHexString(sessionId).toUpperCase();
+    }
+    
+    /**
+     * Call the given handler instead of waking up the input reader when the
+     * question time runs out. It runs on the timer thread; event loops should
+     * hand it over to their own thread and call {@link #onTimeUp()} there.
+     */
+    public void setTimeUpHandler(Runnable handler) {
+        this.timeUpHandler = handler;
+    }
+    
+    /**
+     * Format of the frames returned by the event methods.
+     * @param lineSeparator Line break sent to the terminal ("\r\n" for network clients)
+     * @param terminalRows Terminal height; see {@link FrameRenderer} for frames taller than that
+     */
+    public void setTerminal(String lineSeparator, int terminalRows) {
+        this.frameLineSeparator = lineSeparator;
+        this.frameRows = terminalRows;
+    }
+    
+    /**
+     * Play without output: the event methods return empty frames and skip
+     * rendering them, for replays at full speed.
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
+    
+    public State getState() {
+        return state;
+    }
+    
+    public boolean isFinished() {
+        return state == State.FINISHED;
     }
     
     /**
-     * Start the game.
+     * Play the whole game on this thread, reading from the game's input reader.
      */
     public void start() {
-        displayWelcomeScreen();
-        waitForEnter();
+        begin();
+        while (state != State.FINISHED) {
+            String line;
+            try {
+                line = readLine();
+            } catch (RuntimeException e) {
+                if (!waitingForEnter()) {
+                    throw e;
+                }
+                line = ""; // nothing left to read; the next prompt gives up
+            }
+            handle(line);
+        }
+        TUI.flush();
+    }
+    
+    /**
+     * Start the game without blocking.
+     * @return The first frame (the welcome screen) to send to the terminal, UTF-8 encoded
+     */
+    public byte[] open() {
+        return frame(null, false);
+    }
+    
+    /**
+     * Handle a line the player entered, without blocking. The line is taken
+     * to have been echoed by the player's terminal.
+     * @return The frame to send to the terminal, UTF-8 encoded, possibly empty
+     */
+    public byte[] onInput(String line) {
+        return frame(Objects.requireNonNull(line), false);
+    }
+    
+    /**
+     * Handle the question time running out, without blocking. Does nothing
+     * if the question was settled meanwhile.
+     * @return The frame to send to the terminal, UTF-8 encoded, possibly empty
+     */
+    public byte[] onTimeUp() {
+        if (questionTimer == null || !questionTimer.isExpired()) {
+            return FrameCapture.EMPTY;
+        }
+        return frame(null, true);
+    }
+    
+    /**
+     * Run out the time of the question shown now, whatever the timer says,
+     * as a replayed time-up does.
+     */
+    byte[] timeUpNow() {
+        return frame(null, true);
+    }
+    
+    /**
+     * Run one event on this game's own renderer and collect what it drew.
+     */
+    private byte[] frame(String line, boolean timeUp) {
+        if (frameRenderer == null) {
+            frameCapture = new FrameCapture();
+            frameRenderer = new FrameRenderer(frameCapture, frameLineSeparator, frameRows);
+        }
+        FrameRenderer previous = TUI.getRenderer();
+        TUI.setRenderer(frameRenderer);
+        try {
+            if (state == State.NEW) {
+                begin();
+            } else if (timeUp) {
+                if (state == State.QUESTION || state == State.LIFELINE_MENU) {
+                    handle(null);
+                }
+            } else {
+                frameRenderer.inputEcho(line);
+                handle(line);
+            }
+            if (headless) {
+                frameRenderer.clearScreen(); // drop the frame
+            } else {
+                frameRenderer.flush();
+                frameRenderer.trimBuffer();
+            }
+        } finally {
+            TUI.setRenderer(previous);
+        }
+        return frameCapture.take();
+    }
+    
+    /**
+     * Collects everything a frame writes. A frame's bytes are handed over
+     * whole by {@link #take()} and nothing is kept between frames, so idle
+     * games hold no buffer. A frame written in one piece, as the renderer
+     * does, is handed over without copying.
+     */
+    private static class FrameCapture extends OutputStream {
         
-        // Main game loop
-        while (!gameOver && currentLevel <= PrizeLadder.getTotalLevels()) {
-            playQuestion();
-            
-            if (gameOver) {
-                break;
+        static final byte[] EMPTY = new byte[0];
+        
+        private byte[] frame;
+        private int size;
+        // Whether frame is an array the writer passed in, to be copied before appending
+        private boolean borrowed;
+        
+        @Override
+        public void write(byte[] bytes) {
+            if (size == 0) {
+                frame = bytes;
+                size = bytes.length;
+                borrowed = true;
+            } else {
+                write(bytes, 0, bytes.length);
             }
-            
-            currentLevel++;
         }
         
-        if (gameWon) {
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(size + length);
+            System.arraycopy(bytes, offset, frame, size, length);
+            size += length;
+        }
+        
+        @Override
+        public void write(int b) {
+            ensureCapacity(size + 1);
+            frame[size++] = (byte) b;
+        }
+        
+        private void ensureCapacity(int capacity) {
+            if (frame == null) {
+                frame = new byte[Math.max(capacity, 256)];
+            } else if (borrowed || capacity > frame.length) {
+                frame = Arrays.copyOf(frame, Math.max(capacity, frame.length * 2));
+            }
+            borrowed = false;
+        }
+        
+        byte[] take() {
+            byte[] taken = size == 0 ? EMPTY : size == frame.length ? frame : Arrays.copyOf(frame, size);
+            frame = null;
+            size = 0;
+            borrowed = false;
+            return taken;
+        }
+    }
+    
+    /**
+     * Show the welcome screen.
+     */
+    private void begin() {
+        if (state != State.NEW) {
+            throw new IllegalStateException("Game already started");
+        }
+        gameEnd = new GameEvents.GameEnd();
+        gameEnd.begin();
+        displayWelcomeScreen();
+        state = State.WELCOME;
+    }
+    
+    /**
+     * Move the game on by one input.
+     * @param line The line entered, or null if the question time ran out
+     */
+    private void handle(String line) {
+        if (recorder != null && state != State.FINISHED) {
+            recorder.input(line);
+        }
+        switch (state) {
+            case WELCOME:
+            case ANSWERED:
+            case WALKED_AWAY:
+                nextQuestionOrFinish();
+                break;
+            case QUESTION:
+                handleQuestionInput(line);
+                break;
+            case LIFELINE_MENU:
+                if (line == null) {
+                    handleAnswer(null, questionLevel, questionIsCheckpoint);
+                } else {
+                    handleLifelineChoice(line);
+                    if (state == State.LIFELINE_MENU) {
+                        promptForAnswer();
+                    }
+                }
+                break;
+            case NAME_ENTRY:
+                playerName = cleanName(line);
+                recordResult();
+                break;
+            default:
+                break; // nothing more to do
+        }
+    }
+    
+    private boolean waitingForEnter() {
+        return state == State.WELCOME || state == State.ANSWERED || state == State.WALKED_AWAY;
+    }
+    
+    private void nextQuestionOrFinish() {
+        if (engine.hasNextQuestion()) {
+            showQuestion();
+        } else {
+            finish();
+        }
+    }
+    
+    /**
+     * Show the final screen and report the result.
+     */
+    private void finish() {
+        if (engine.isGameWon()) {
             displayWinScreen();
         } else {
             displayLoseScreen();
         }
+        gameEnd.end();
+        if (gameEnd.shouldCommit()) {
+            gameEnd.level = engine.getCurrentLevel();
+            Question last = engine.getCurrentQuestion();
+            gameEnd.questionId = last == null ? 0 : last.getId();
+            gameEnd.prize = engine.getCurrentPrize();
+            gameEnd.won = engine.isGameWon();
+            gameEnd.commit();
+        }
+        gameEnd = null;
+        if (recorder != null) {
+            recorder.end(getOutcome());
+        }
+        TUI.getRenderer().setQuestion(0, 0);
+        if (leaderboard != null && playerName == null) {
+            TUI.printColor("Enter your name for the leaderboard: ", TUI.YELLOW);
+            state = State.NAME_ENTRY;
+        } else {
+            recordResult();
+        }
+    }
+    
+    /**
+     * Turn what the player entered into a leaderboard name. Other players
+     * see it on their terminals, so control characters (ESC, and with it any
+     * escape sequence) are dropped. At most 20 characters are kept.
+     */
+    static String cleanName(String line) {
+        StringBuilder name = new StringBuilder();
+        if (line != null) {
+            line.trim().codePoints()
+                    .filter(c -> !Character.isISOControl(c))
+                    .limit(20)
+                    .forEach(name::appendCodePoint);
+        }
+        String cleaned = name.toString().trim();
+        return cleaned.isEmpty() ? "Anonymous" : cleaned;
+    }
+    
+    /**
+     * Put the result on the leaderboard, if there is one, and show today's best.
+     */
+    private void recordResult() {
+        state = State.FINISHED;
+        if (recorder != null) {
+            recorder.save();
+        }
+        if (leaderboard == null) {
+            return;
+        }
+        leaderboard.record(playerName, engine.getCurrentPrize(), getOutcome().getLevelReached());
+        
+        TUI.println();
+        TUI.printColor("Today's Leaderboard:\n", TUI.BOLD + TUI.CYAN);
+        List<Leaderboard.Entry> top = leaderboard.top(Leaderboard.Window.DAILY, 10);
+        for (int i = 0; i < top.size(); i++) {
+            Leaderboard.Entry entry = top.get(i);
+            TUI.println(String.format("  %2d. %-20s %12s  (question %d)", i + 1, entry.getPlayer(),
+                    TUI.formatPrize(entry.getPrize()), entry.getLevel()));
+        }
+        TUI.displaySeparator();
+    }
+    
+    /**
+     * How the game ended, or null while it is still going.
+     */
+    public SessionRecording.Outcome getOutcome() {
+        if (!engine.isGameOver()) {
+            return null;
+        }
+        int levelReached = engine.isGameWon() ? ladder.getTotalLevels() : engine.getCurrentLevel() - 1;
+        return new SessionRecording.Outcome(levelReached, engine.getCurrentPrize(), engine.isGameWon(),
+                engine.hasWalkedAway());
     }
     
     /**
@@ -56,54 +548,143 @@ public class Game {
         TUI.clearScreen();
         TUI.displayTitle("WHO WANTS TO BE A MILLIONAIRE");
         
-        System.out.println();
+        TUI.println();
         TUI.printColor("Welcome to the Millionaire game!\n\n", TUI.BOLD + TUI.YELLOW);
         
         TUI.printColor("Game Rules:\n", TUI.BOLD + TUI.CYAN);
-        System.out.println("  • Answer 15 questions correctly to win $1,000,000");
-        System.out.println("  • Checkpoints at questions 5, 10, and 15 (safety nets)");
-        System.out.println("  • Use lifelines: 50/50, Phone a Friend, Ask the Audience");
-        System.out.println("  • You can walk away at any time by typing 'WALK'");
-        System.out.println("  • Wrong answer before a checkpoint means you lose!");
+        TUI.println("  • Answer " + ladder.getTotalLevels() + " questions correctly to win "
+                + TUI.formatPrize(ladder.getTopPrize()));
+        String checkpoints = describeCheckpoints();
+        if (checkpoints.isEmpty()) {
+            TUI.println("  • No checkpoints: a wrong answer loses everything");
+        } else {
+            TUI.println("  • Checkpoints at questions " + checkpoints + " (safety nets)");
+        }
+        TUI.println("  • Use lifelines: 50/50, Phone a Friend, Ask the Audience");
+        TUI.println("  • You can walk away at any time by typing 'WALK'");
+        TUI.println("  • Wrong answer before a checkpoint means you lose!");
         
-        System.out.println();
+        TUI.println();
         TUI.printColor("Lifelines:\n", TUI.BOLD + TUI.CYAN);
-        System.out.println("  • 50/50: Eliminates two wrong answers");
-        System.out.println("  • Phone a Friend: Get a friend's suggestion");
-        System.out.println("  • Ask the Audience: See audience poll results");
+        TUI.println("  • 50/50: Eliminates two wrong answers");
+        TUI.println("  • Phone a Friend: Get a friend's suggestion");
+        TUI.println("  • Ask the Audience: See audience poll results");
         
-        System.out.println();
-        PrizeLadder.displayLadder(0);
+        TUI.println();
+        ladder.displayLadder(0);
         
-        System.out.println();
+        TUI.println();
         TUI.printColor("Press ENTER to start the game...", TUI.YELLOW);
     }
     
     /**
-     * Wait for user to press Enter.
+     * Checkpoint levels as text, e.g. "5, 10, and 15"; empty if there are none.
      */
-    private void waitForEnter() {
-        try {
-            scanner.nextLine();
-        } catch (Exception e) {
-            // Continue
+    private String describeCheckpoints() {
+        List<String> levels = new ArrayList<>();
+        for (int level = 1; level <= ladder.getTotalLevels(); level++) {
+            if (ladder.isCheckpoint(level)) {
+                levels.add(String.valueOf(level));
+            }
+        }
+        if (levels.size() < 3) {
+            return String.join(" and ", levels);
+        }
+        return String.join(", ", levels.subList(0, levels.size() - 1)) + ", and " + levels.get(levels.size() - 1);
+    }
+    
+    /**
+     * Show the pending frame and read a line of input.
+     * @return The line, or null if the question timer ran out
+     */
+    private String readLine() {
+        TUI.flush();
+        while (true) {
+            String line;
+            if (questionTimer == null) {
+                line = input.readLine();
+            } else {
+                // The wheel runs the timer up to a tick late; the deadline is exact
+                long remaining = questionDeadlineNanos - System.nanoTime();
+                if (questionTimer.isExpired() || remaining <= 0) {
+                    return null;
+                }
+                // Returns null when woken up by the timer or once the time is up
+                line = input.readLine(remaining, TimeUnit.NANOSECONDS);
+            }
+            if (line != null) {
+                TUI.getRenderer().inputEcho(line);
+                return line;
+            }
+        }
+    }
+    
+    /**
+     * Start the countdown for the current question, if play is timed.
+     */
+    private void startQuestionTimer() {
+        if (questionTimeLimitMillis > 0) {
+            scheduleQuestionTimer(TimeUnit.MILLISECONDS.toNanos(questionTimeLimitMillis));
+        }
+    }
+    
+    private void scheduleQuestionTimer(long nanos) {
+        Runnable timeUp = timeUpHandler != null ? timeUpHandler : input::wakeUp;
+        questionDeadlineNanos = System.nanoTime() + nanos;
+        questionTimer = TimerWheel.shared().schedule(timeUp, nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Hold the countdown while the player can't answer, e.g. during an audience vote.
+     * @return The time left, to pass to {@link #resumeQuestionTimer(long)}, or -1
+     *         if there is no countdown or it has already run out
+     */
+    private long pauseQuestionTimer() {
+        if (questionTimer == null || !questionTimer.cancel()) {
+            // An expired timer stays, so the time-up still counts
+            return -1;
         }
+        questionTimer = null;
+        return Math.max(0, questionDeadlineNanos - System.nanoTime());
     }
     
     /**
-     * Play a single question.
+     * Continue a countdown held by {@link #pauseQuestionTimer()}.
      */
-    private void playQuestion() {
+    private void resumeQuestionTimer(long remaining) {
+        if (remaining >= 0) {
+            scheduleQuestionTimer(remaining);
+        }
+    }
+    
+    /**
+     * Stop the countdown once the player has decided.
+     */
+    private void stopQuestionTimer() {
+        if (questionTimer != null) {
+            questionTimer.cancel();
+            questionTimer = null;
+        }
+    }
+    
+    /**
+     * Show the next question and ask for an answer.
+     */
+    private void showQuestion() {
+        GameEvents.QuestionShown shown = new GameEvents.QuestionShown();
+        shown.begin();
+        int currentLevel = engine.getCurrentLevel();
         TUI.clearScreen();
         
         // Display prize ladder
-        PrizeLadder.displayLadder(currentLevel);
-        System.out.println();
+        ladder.displayLadder(currentLevel);
+        TUI.println();
         
         // Get question
-        Question question = questionBank.getQuestion(currentLevel);
-        int prize = PrizeLadder.getPrize(currentLevel);
-        boolean isCheckpoint = PrizeLadder.isCheckpoint(currentLevel);
+        Question question = engine.nextQuestion();
+        long prize = ladder.getPrize(currentLevel);
+        boolean isCheckpoint = ladder.isCheckpoint(currentLevel);
+        TUI.getRenderer().setQuestion(currentLevel, question.getId());
         
         // Display question header
         TUI.displayTitle("QUESTION " + currentLevel);
@@ -112,36 +693,75 @@ public class Game {
         if (isCheckpoint) {
             TUI.printlnColor("✓ CHECKPOINT - Safety net at this level!", TUI.BOLD + TUI.YELLOW);
         }
-        System.out.println();
+        if (resumeCode != null) {
+            TUI.printlnColor("Resume code: " + resumeCode, TUI.WHITE);
+        }
+        if (liveAudience != null) {
+            TUI.printlnColor("Show " + showCode + ", " + liveAudience.getVoterCount() + " watching", TUI.WHITE);
+        }
+        if (questionTimeLimitMillis > 0) {
+            TUI.printlnColor("⏱ You have " + (questionTimeLimitMillis / 1000) + " seconds to answer!", TUI.BOLD + TUI.RED);
+        }
+        TUI.println();
         
         // Display question
         question.displayQuestion();
         question.displayOptions();
+        if (engine.getCurrentOptions().size() < question.getOptionCount()) {
+            // Resumed after a 50/50 on this question
+            displayRemainingOptions();
+        }
         
         // Display lifelines
         displayLifelines();
         
-        // Handle user input
-        boolean answered = false;
-        Map<String, String> currentOptions = question.getOptions();
+        // Wait for the player's decision
+        questionLevel = currentLevel;
+        questionIsCheckpoint = isCheckpoint;
+        state = State.QUESTION;
+        startQuestionTimer();
+        questionShownNanos = System.nanoTime();
+        if (recorder != null) {
+            recorder.questionShown(question.getId());
+        }
+        shown.end();
+        if (shown.shouldCommit()) {
+            shown.level = currentLevel;
+            shown.questionId = question.getId();
+            shown.prize = prize;
+            shown.commit();
+        }
+        promptForAnswer();
+    }
+    
+    private void promptForAnswer() {
+        state = State.QUESTION;
+        TUI.println();
+        TUI.printColor("Your answer (or 'LIFELINE' to use one, 'WALK' to walk away): ", TUI.YELLOW);
+    }
+    
+    /**
+     * Handle a line entered while a question is shown.
+     * @param line The line, or null if the time ran out
+     */
+    private void handleQuestionInput(String line) {
+        if (line == null) {
+            // Out of time: no answer, which counts as a wrong one
+            handleAnswer(null, questionLevel, questionIsCheckpoint);
+            return;
+        }
+        String input = line.toUpperCase().trim();
         
-        while (!answered && !gameOver) {
-            System.out.println();
-            TUI.printColor("Your answer (or 'LIFELINE' to use one, 'WALK' to walk away): ", TUI.YELLOW);
-            String input = scanner.nextLine().toUpperCase().trim();
-            
-            if (input.equals("WALK")) {
-                handleWalkAway();
-                return;
-            } else if (input.equals("LIFELINE") || input.startsWith("LIFELINE")) {
-                currentOptions = handleLifeline(question, currentOptions);
-            } else if (currentOptions.containsKey(input)) {
-                // Valid answer option
-                answered = true;
-                handleAnswer(question, input, isCheckpoint);
-            } else {
-                TUI.printlnColor("Invalid input! Please enter a valid option or command.", TUI.RED);
-            }
+        if (input.equals("WALK")) {
+            handleWalkAway();
+        } else if (input.equals("LIFELINE") || input.startsWith("LIFELINE")) {
+            handleLifeline();
+        } else if (engine.getCurrentOptions().containsKey(input)) {
+            // Valid answer option
+            handleAnswer(input, questionLevel, questionIsCheckpoint);
+        } else {
+            TUI.printlnColor("Invalid input! Please enter a valid option or command.", TUI.RED);
+            promptForAnswer();
         }
     }
     
@@ -153,36 +773,45 @@ public class Game {
             return;
         }
         
-        System.out.println();
+        TUI.println();
         TUI.printColor("Available Lifelines: ", TUI.BOLD + TUI.PURPLE);
         List<String> available = lifelines.getAvailableLifelines();
         for (int i = 0; i < available.size(); i++) {
             TUI.printColor(available.get(i), TUI.PURPLE);
             if (i < available.size() - 1) {
-                System.out.print(", ");
+                TUI.print(", ");
             }
         }
-        System.out.println();
+        TUI.println();
     }
     
     /**
-     * Handle lifeline usage.
+     * Show the lifeline menu.
      */
-    private Map<String, String> handleLifeline(Question question, Map<String, String> currentOptions) {
+    private void handleLifeline() {
         if (!lifelines.hasAnyLifelines()) {
             TUI.printlnColor("No lifelines available!", TUI.RED);
-            return currentOptions;
+            promptForAnswer();
+            return;
         }
         
-        System.out.println();
+        TUI.println();
         TUI.printColor("Available lifelines:\n", TUI.BOLD + TUI.CYAN);
         List<String> available = lifelines.getAvailableLifelines();
         for (int i = 0; i < available.size(); i++) {
-            System.out.println("  " + (i + 1) + ". " + available.get(i));
+            TUI.println("  " + (i + 1) + ". " + available.get(i));
         }
         
         TUI.printColor("\nEnter lifeline number or name: ", TUI.YELLOW);
-        String choice = scanner.nextLine().trim();
+        state = State.LIFELINE_MENU;
+    }
+    
+    /**
+     * Use the lifeline chosen from the menu.
+     */
+    private void handleLifelineChoice(String choice) {
+        List<String> available = lifelines.getAvailableLifelines();
+        choice = choice.trim();
         
         try {
             int lifelineNum = Integer.parseInt(choice);
@@ -193,83 +822,108 @@ public class Game {
             // Use choice as-is
         }
         
+        GameEvents.LifelineUsed event = new GameEvents.LifelineUsed();
+        event.begin();
         try {
-            Object result = lifelines.useLifeline(choice, question);
-            
-            if (result instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, ?> resultMap = (Map<String, ?>) result;
-                
-                // Check if it's Ask the Audience (values are integers) or 50/50 (values are strings)
-                Object firstValue = resultMap.isEmpty() ? null : resultMap.values().iterator().next();
-                if (firstValue instanceof Integer) {
-                    // Ask the Audience - percentages already displayed in lifeline method, options remain the same
-                    // No need to change options
-                } else {
-                    // 50/50 - return new options map and display reduced options
-                    @SuppressWarnings("unchecked")
-                    Map<String, String> reducedOptions = (Map<String, String>) resultMap;
-                    
-                    TUI.printColor("\nRemaining options:\n", TUI.BOLD + TUI.CYAN);
-                    TUI.printColor("╔═══════════════════════════════════════════════════════════════════╗\n", TUI.CYAN);
-                    TUI.printColor("║                           OPTIONS                                ║\n", TUI.CYAN);
-                    TUI.printColor("╠═══════════════════════════════════════════════════════════════════╣\n", TUI.CYAN);
-                    
-                    String[] optionColors = {TUI.GREEN, TUI.BLUE};
-                    int colorIndex = 0;
-                    
-                    for (String key : reducedOptions.keySet()) {
-                        String color = optionColors[colorIndex % optionColors.length];
-                        TUI.printColor("║ ", TUI.CYAN);
-                        TUI.printColor(String.format("Option %s: ", key), TUI.BOLD + color);
-                        TUI.printColor(String.format("%-60s", reducedOptions.get(key)), TUI.WHITE);
-                        TUI.printlnColor(" ║", TUI.CYAN);
-                        colorIndex++;
-                    }
-                    
-                    TUI.printColor("╚═══════════════════════════════════════════════════════════════════╝\n", TUI.CYAN);
-                    return reducedOptions;
+            // Phone a Friend and Ask the Audience display their own results; options remain the same
+            if (Lifelines.ASK_AUDIENCE.equals(choice)) {
+                // A live audience takes its voting time, which is not the player's to lose
+                long remaining = pauseQuestionTimer();
+                try {
+                    engine.useLifeline(choice);
+                } finally {
+                    resumeQuestionTimer(remaining);
                 }
-            } else if (result instanceof String) {
-                // Phone a Friend - just show suggestion, don't change options
-                // Options remain the same
+            } else {
+                engine.useLifeline(choice);
+            }
+            
+            if (Lifelines.FIFTY_FIFTY.equals(choice)) {
+                displayRemainingOptions();
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.level = engine.getCurrentLevel();
+                event.questionId = engine.getCurrentQuestion().getId();
+                event.lifeline = choice;
+                event.commit();
             }
         } catch (Exception e) {
             TUI.printlnColor("Error using lifeline: " + e.getMessage(), TUI.RED);
         }
+    }
+    
+    /**
+     * Display the options left after a 50/50.
+     */
+    private void displayRemainingOptions() {
+        Map<String, String> reducedOptions = engine.getCurrentOptions();
+        
+        TUI.printColor("\nRemaining options:\n", TUI.BOLD + TUI.CYAN);
+        TUI.printColor("╔═══════════════════════════════════════════════════════════════════╗\n", TUI.CYAN);
+        TUI.printColor("║                           OPTIONS                                ║\n", TUI.CYAN);
+        TUI.printColor("╠═══════════════════════════════════════════════════════════════════╣\n", TUI.CYAN);
+        
+        String[] optionColors = {TUI.GREEN, TUI.BLUE};
+        int colorIndex = 0;
+        
+        for (String key : reducedOptions.keySet()) {
+            String color = optionColors[colorIndex % optionColors.length];
+            TUI.printColor("║ ", TUI.CYAN);
+            TUI.printColor(String.format("Option %s: ", key), TUI.BOLD + color);
+            TUI.printColor(String.format("%-60s", reducedOptions.get(key)), TUI.WHITE);
+            TUI.printlnColor(" ║", TUI.CYAN);
+            colorIndex++;
+        }
         
-        return currentOptions;
+        TUI.printColor("╚═══════════════════════════════════════════════════════════════════╝\n", TUI.CYAN);
     }
     
     /**
      * Handle player's answer.
      */
-    private void handleAnswer(Question question, String answer, boolean isCheckpoint) {
-        System.out.println();
+    private void handleAnswer(String answer, int currentLevel, boolean isCheckpoint) {
+        GameEvents.AnswerSubmitted event = new GameEvents.AnswerSubmitted();
+        event.begin();
+        stopQuestionTimer();
+        long thinkTime = System.nanoTime() - questionShownNanos;
+        GameMetrics.recordThinkTime(currentLevel, thinkTime);
+        TUI.println();
         TUI.displaySeparator();
+        if (answer == null) {
+            TUI.printlnColor("\n⏱ TIME'S UP!", TUI.BOLD + TUI.RED);
+        }
+        
+        Question question = engine.getCurrentQuestion();
+        boolean correct = engine.answer(answer);
+        if (analytics != null) {
+            analytics.recordAnswer(question, answer, correct);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.level = currentLevel;
+            event.questionId = question.getId();
+            event.answer = answer;
+            event.correct = correct;
+            event.thinkTime = thinkTime;
+            event.commit();
+        }
+        long currentPrize = engine.getCurrentPrize();
         
-        if (question.isCorrect(answer)) {
+        if (correct) {
             // Correct answer
-            currentPrize = PrizeLadder.getPrize(currentLevel);
             TUI.printlnColor("\n✓ CORRECT ANSWER!", TUI.BOLD + TUI.GREEN);
             TUI.printColor("You've won: ", TUI.WHITE);
             TUI.printlnColor(TUI.formatPrize(currentPrize), TUI.BOLD + TUI.GREEN);
-            
-            if (currentLevel == PrizeLadder.getTotalLevels()) {
-                gameWon = true;
-                gameOver = true;
-            }
         } else {
             // Wrong answer
             if (isCheckpoint) {
                 // At checkpoint, player gets checkpoint prize
-                currentPrize = PrizeLadder.getCheckpointPrize(currentLevel);
                 TUI.printlnColor("\n✗ WRONG ANSWER!", TUI.BOLD + TUI.RED);
                 TUI.printColor("But you're at a checkpoint! You walk away with: ", TUI.YELLOW);
                 TUI.printlnColor(TUI.formatPrize(currentPrize), TUI.BOLD + TUI.YELLOW);
             } else {
                 // Not at checkpoint, player loses
-                currentPrize = PrizeLadder.getHighestCheckpointPrize(currentLevel);
                 TUI.printlnColor("\n✗ WRONG ANSWER!", TUI.BOLD + TUI.RED);
                 if (currentPrize > 0) {
                     TUI.printColor("You walk away with: ", TUI.YELLOW);
@@ -278,30 +932,39 @@ public class Game {
                     TUI.printlnColor("You walk away with $0", TUI.RED);
                 }
             }
-            gameOver = true;
         }
         
         TUI.displaySeparator();
-        waitForEnter();
+        state = State.ANSWERED;
     }
     
     /**
      * Handle walk away option.
      */
     private void handleWalkAway() {
-        currentPrize = PrizeLadder.getHighestCheckpointPrize(currentLevel - 1);
-        if (currentLevel > 1) {
-            // Walk away with previous level's prize
-            currentPrize = PrizeLadder.getPrize(currentLevel - 1);
+        GameEvents.WalkAway event = new GameEvents.WalkAway();
+        event.begin();
+        stopQuestionTimer();
+        int level = engine.getCurrentLevel();
+        long thinkTime = System.nanoTime() - questionShownNanos;
+        GameMetrics.recordThinkTime(level, thinkTime);
+        Question question = engine.getCurrentQuestion();
+        // Walk away with previous level's prize
+        engine.walkAway();
+        event.end();
+        if (event.shouldCommit()) {
+            event.level = level;
+            event.questionId = question.getId();
+            event.prize = engine.getCurrentPrize();
+            event.thinkTime = thinkTime;
+            event.commit();
         }
         
-        System.out.println();
+        TUI.println();
         TUI.printlnColor("You've decided to walk away!", TUI.BOLD + TUI.YELLOW);
         TUI.printColor("You take home: ", TUI.WHITE);
-        TUI.printlnColor(TUI.formatPrize(currentPrize), TUI.BOLD + TUI.GREEN);
-        
-        gameOver = true;
-        waitForEnter();
+        TUI.printlnColor(TUI.formatPrize(engine.getCurrentPrize()), TUI.BOLD + TUI.GREEN);
+        state = State.WALKED_AWAY;
     }
     
     /**
@@ -311,14 +974,14 @@ public class Game {
         TUI.clearScreen();
         TUI.displayTitle("CONGRATULATIONS!");
         
-        System.out.println();
+        TUI.println();
         TUI.printlnColor("🎉 YOU ARE A MILLIONAIRE! 🎉", TUI.BOLD + TUI.GREEN);
-        System.out.println();
-        TUI.printColor("You've successfully answered all 15 questions!", TUI.WHITE);
-        System.out.println();
+        TUI.println();
+        TUI.printColor("You've successfully answered all " + ladder.getTotalLevels() + " questions!", TUI.WHITE);
+        TUI.println();
         TUI.printColor("Total Prize: ", TUI.BOLD);
-        TUI.printlnColor(TUI.formatPrize(1_000_000), TUI.BOLD + TUI.GREEN);
-        System.out.println();
+        TUI.printlnColor(TUI.formatPrize(ladder.getTopPrize()), TUI.BOLD + TUI.GREEN);
+        TUI.println();
         TUI.displaySeparator();
     }
     
@@ -329,12 +992,12 @@ public class Game {
         TUI.clearScreen();
         TUI.displayTitle("GAME OVER");
         
-        System.out.println();
-        TUI.printColor("You made it to question " + (currentLevel - 1), TUI.WHITE);
-        System.out.println();
+        TUI.println();
+        TUI.printColor("You made it to question " + (engine.getCurrentLevel() - 1), TUI.WHITE);
+        TUI.println();
         TUI.printColor("Total Prize: ", TUI.BOLD);
-        TUI.printlnColor(TUI.formatPrize(currentPrize), TUI.BOLD + TUI.YELLOW);
-        System.out.println();
+        TUI.printlnColor(TUI.formatPrize(engine.getCurrentPrize()), TUI.BOLD + TUI.YELLOW);
+        TUI.println();
         TUI.displaySeparator();
     }
     
@@ -342,8 +1005,17 @@ public class Game {
      * Close resources.
      */
     public void close() {
-        if (scanner != null) {
-            scanner.close();
+        stopQuestionTimer();
+        if (recorder != null) {
+            recorder.save(); // unfinished games are worth a look too
+        }
+        if (input == null) {
+            return;
+        }
+        try {
+            input.close();
+        } catch (IOException e) {
+            // Nothing left to read anyway
         }
     }
 }
@@ -0,0 +1,279 @@
+import java.util.Map;
+
+/**
+ * Headless core of the Millionaire game.
+ * Tracks level, prize and lifelines without any terminal input or output,
+ * so the same rules drive both the interactive {@link Game} and simulations.
+ */
+public class GameEngine {
+
+    private QuestionCursor questions;
+    private Lifelines lifelines;
+    private PrizeLadder ladder;
+    private int currentLevel;
+    private long currentPrize;
+    // Level whose prize currentPrize is, 0 for none
+    private int prizeLevel;
+    private boolean gameOver;
+    private boolean gameWon;
+    private boolean walkedAway;
+    private Question currentQuestion;
+    private int currentQuestionIndex;
+    private boolean questionOpen;
+    private Map<String, String> currentOptions;
+    
+    // Optional journal of this session's events, for crash recovery
+    private SessionJournal journal;
+    private long sessionId;
+
+    /**
+     * @param questions This session's cursor over a (possibly shared) question bank
+     * @param lifelines This session's lifelines
+     */
+    public GameEngine(QuestionCursor questions, Lifelines lifelines) {
+        this(questions, lifelines, PrizeLadder.standard());
+    }
+
+    /**
+     * @param questions This session's cursor over a (possibly shared) question bank
+     * @param lifelines This session's lifelines
+     * @param ladder Prize ladder played
+     */
+    public GameEngine(QuestionCursor questions, Lifelines lifelines, PrizeLadder ladder) {
+        this.questions = questions;
+        this.lifelines = lifelines;
+        this.ladder = ladder;
+        this.currentLevel = 1;
+        this.currentPrize = 0;
+        this.gameOver = false;
+        this.gameWon = false;
+        this.walkedAway = false;
+    }
+
+    /**
+     * Record this session's events in a journal from now on.
+     * @param journal The journal shared by all sessions
+     * @param sessionId Id of this session in the journal
+     * @param newSession Whether to record the start of a new game (false when resuming)
+     */
+    public void setJournal(SessionJournal journal, long sessionId, boolean newSession) {
+        this.journal = journal;
+        this.sessionId = sessionId;
+        if (newSession) {
+            journal.sessionStarted(sessionId);
+        }
+    }
+    
+    /**
+     * Continue a game from where the journal says it stood.
+     * An unanswered question is picked up again by {@link #nextQuestion()}.
+     */
+    public void restore(SessionJournal.SessionState state) {
+        currentLevel = state.getLevel();
+        currentPrize = state.getPrize();
+        prizeLevel = currentLevel - 1;
+        for (String lifeline : lifelines.getAvailableLifelines()) {
+            if (state.isLifelineUsed(lifeline)) {
+                lifelines.markUsed(lifeline);
+            }
+        }
+        if (state.getQuestionIndex() >= 0) {
+            currentQuestionIndex = state.getQuestionIndex();
+            currentQuestion = questions.getBank().getQuestion(currentLevel, currentQuestionIndex);
+            if (state.getFiftyFiftyKept() >= 0) {
+                currentOptions = Lifelines.fiftyFiftyOptions(currentQuestion, state.getFiftyFiftyKept());
+                lifelines.markFiftyFifty(currentQuestion, state.getFiftyFiftyKept());
+            } else {
+                currentOptions = currentQuestion.getOptions();
+            }
+            questionOpen = true;
+        }
+    }
+    
+    /**
+     * Check if there is another question to play.
+     */
+    public boolean hasNextQuestion() {
+        return !gameOver && currentLevel <= ladder.getTotalLevels();
+    }
+
+    /**
+     * Pick the question for the current level and make it the active one,
+     * unless a restored game stopped on a question that is still unanswered.
+     */
+    public Question nextQuestion() {
+        if (questionOpen) {
+            return currentQuestion;
+        }
+        currentQuestionIndex = questions.nextIndex(currentLevel);
+        currentQuestion = questions.getBank().getQuestion(currentLevel, currentQuestionIndex);
+        currentOptions = currentQuestion.getOptions();
+        questionOpen = true;
+        if (journal != null) {
+            journal.questionShown(sessionId, currentLevel, currentQuestionIndex);
+        }
+        return currentQuestion;
+    }
+
+    /**
+     * Use a lifeline on the active question.
+     * A 50/50 narrows the options that remain valid answers.
+     * @param lifelineName Name of the lifeline
+     * @return The lifeline result, as returned by {@link Lifelines#useLifeline}
+     */
+    public Object useLifeline(String lifelineName) {
+        Object result = lifelines.useLifeline(lifelineName, currentQuestion);
+        if (Lifelines.FIFTY_FIFTY.equals(lifelineName)) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> reducedOptions = (Map<String, String>) result;
+            currentOptions = reducedOptions;
+        }
+        if (journal != null) {
+            int kept = -1;
+            if (Lifelines.FIFTY_FIFTY.equals(lifelineName)) {
+                for (String key : currentOptions.keySet()) {
+                    if (!currentQuestion.isCorrect(key)) {
+                        kept = currentQuestion.indexOfOption(key);
+                    }
+                }
+            }
+            journal.lifelineUsed(sessionId, currentLevel, lifelineName, kept);
+        }
+        return result;
+    }
+
+    /**
+     * Answer the active question.
+     * A correct answer banks the level's prize and moves up the ladder;
+     * a wrong one ends the game on the highest reached checkpoint prize.
+     * @param answer The option key chosen, or null if the player ran out of time
+     * @return true if the answer was correct
+     */
+    public boolean answer(String answer) {
+        int level = currentLevel;
+        boolean correct = currentQuestion.isCorrect(answer);
+        questionOpen = false;
+        if (correct) {
+            currentPrize = ladder.getPrize(currentLevel);
+            prizeLevel = currentLevel;
+            if (currentLevel == ladder.getTotalLevels()) {
+                gameWon = true;
+                gameOver = true;
+            } else {
+                currentLevel++;
+            }
+        } else {
+            // At a checkpoint this is the checkpoint's own prize
+            currentPrize = ladder.getHighestCheckpointPrize(currentLevel);
+            prizeLevel = ladder.getHighestCheckpoint(currentLevel);
+            gameOver = true;
+        }
+
+        if (journal != null) {
+            long position = journal.answered(sessionId, level, correct, currentPrize);
+            if (gameOver) {
+                position = journal.gameEnded(sessionId, level, currentPrize);
+            }
+            journal.awaitDurable(position);
+        }
+        return correct;
+    }
+
+    /**
+     * Walk away with the prize of the last answered question.
+     */
+    public void walkAway() {
+        currentPrize = ladder.getPrize(currentLevel - 1);
+        prizeLevel = currentLevel - 1;
+        walkedAway = true;
+        gameOver = true;
+        questionOpen = false;
+        if (journal != null) {
+            journal.awaitDurable(journal.walkedAway(sessionId, currentLevel, currentPrize));
+        }
+    }
+
+    /**
+     * Play a whole game with the given player strategy.
+     * @param player Strategy deciding every move
+     */
+    public void play(Player player) {
+        while (hasNextQuestion()) {
+            Question question = nextQuestion();
+            player.onQuestion(currentLevel, question);
+
+            boolean done = false;
+            while (!done) {
+                Player.Move move = player.nextMove(this);
+                switch (move.getType()) {
+                    case ANSWER:
+                        answer(move.getValue());
+                        done = true;
+                        break;
+                    case LIFELINE:
+                        player.onLifelineResult(move.getValue(), useLifeline(move.getValue()));
+                        break;
+                    case WALK_AWAY:
+                        walkAway();
+                        done = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown move: " + move.getType());
+                }
+            }
+        }
+    }
+
+    public int getCurrentLevel() {
+        return currentLevel;
+    }
+
+    public long getCurrentPrize() {
+        return currentPrize;
+    }
+
+    /**
+     * The ladder level whose prize the player has now, 0 if none.
+     */
+    public int getPrizeLevel() {
+        return prizeLevel;
+    }
+
+    public PrizeLadder getLadder() {
+        return ladder;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isGameWon() {
+        return gameWon;
+    }
+
+    public boolean hasWalkedAway() {
+        return walkedAway;
+    }
+
+    public Question getCurrentQuestion() {
+        return currentQuestion;
+    }
+    
+    /**
+     * Index of the active question within its level of the bank.
+     */
+    public int getCurrentQuestionIndex() {
+        return currentQuestionIndex;
+    }
+
+    /**
+     * Options still valid for the active question (reduced after a 50/50).
+     */
+    public Map<String, String> getCurrentOptions() {
+        return currentOptions;
+    }
+
+    public Lifelines getLifelines() {
+        return lifelines;
+    }
+}
@@ -0,0 +1,115 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events of the game lifecycle, to line up GC pauses
+ * and stalls with what players were doing. Start a recording with
+ * -XX:StartFlightRecording or jcmd and look under "Millionaire".
+ *
+ * Each event carries the level and the {@link Question#getId() question ID};
+ * its duration is the time the game spent handling it. Events are created,
+ * timed and only filled in when {@link Event#shouldCommit()} says so, which
+ * the JIT reduces to nothing while no recording wants them:
+ * <pre>
+ *   GameEvents.LifelineUsed event = new GameEvents.LifelineUsed();
+ *   event.begin();
+ *   ...
+ *   event.end();
+ *   if (event.shouldCommit()) {
+ *       event.level = level;
+ *       ...
+ *       event.commit();
+ *   }
+ * </pre>
+ */
+public final class GameEvents {
+
+    private GameEvents() {
+    }
+
+    @Category("Millionaire")
+    @StackTrace(false)
+    abstract static class GameEvent extends Event {
+
+        @Label("Level")
+        int level;
+
+        @Label("Question ID")
+        @Description("Question ID, see Question.getId()")
+        long questionId;
+    }
+
+    @Name("millionaire.QuestionShown")
+    @Label("Question Shown")
+    @Description("A question was picked and its screen drawn")
+    static class QuestionShown extends GameEvent {
+
+        @Label("Prize")
+        long prize;
+    }
+
+    @Name("millionaire.AnswerSubmitted")
+    @Label("Answer Submitted")
+    @Description("A player answered or ran out of time")
+    static class AnswerSubmitted extends GameEvent {
+
+        @Label("Answer")
+        String answer;
+
+        @Label("Correct")
+        boolean correct;
+
+        @Label("Think Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long thinkTime;
+    }
+
+    @Name("millionaire.LifelineUsed")
+    @Label("Lifeline Used")
+    static class LifelineUsed extends GameEvent {
+
+        @Label("Lifeline")
+        String lifeline;
+    }
+
+    @Name("millionaire.WalkAway")
+    @Label("Walk Away")
+    @Description("A player walked away with the prize of the previous level")
+    static class WalkAway extends GameEvent {
+
+        @Label("Prize")
+        long prize;
+
+        @Label("Think Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long thinkTime;
+    }
+
+    @Name("millionaire.GameEnd")
+    @Label("Game End")
+    @Description("A game finished; the duration covers the whole game")
+    static class GameEnd extends GameEvent {
+
+        @Label("Prize")
+        long prize;
+
+        @Label("Won")
+        boolean won;
+    }
+
+    @Name("millionaire.ScreenRender")
+    @Label("Screen Render")
+    @Description("A frame was written to the terminal")
+    static class ScreenRender extends GameEvent {
+
+        @Label("Bytes")
+        @DataAmount
+        int bytes;
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Latency and usage metrics of every game in this JVM:
+ * <ul>
+ *   <li>time to render a frame to the terminal ({@link FrameRenderer#flush()})</li>
+ *   <li>time to fetch a question from the bank</li>
+ *   <li>player think time, from the question being shown to the answer, per level</li>
+ *   <li>how often each lifeline is used</li>
+ * </ul>
+ * Recording never allocates, so it is always on. The metrics can be
+ * registered as MBeans under the "millionaire" domain for JConsole and
+ * friends, and appended to a text file periodically.
+ */
+public final class GameMetrics {
+
+    public static final LatencyHistogram RENDER = new LatencyHistogram("render");
+    public static final LatencyHistogram QUESTION_FETCH = new LatencyHistogram("question-fetch");
+
+    private static final LatencyHistogram[] THINK_TIME = new LatencyHistogram[PrizeLadder.MAX_LEVELS + 1];
+    private static final LongAdder[] LIFELINE_USES = {new LongAdder(), new LongAdder(), new LongAdder()};
+    private static final LifelineCounts LIFELINE_COUNTS = new LifelineCounts();
+    private static ScheduledExecutorService dumper;
+    private static boolean registered;
+
+    static {
+        for (int level = 1; level < THINK_TIME.length; level++) {
+            THINK_TIME[level] = new LatencyHistogram("think-time level " + level);
+        }
+    }
+
+    private GameMetrics() {
+    }
+
+    /**
+     * Record how long a player took to decide on a question.
+     */
+    public static void recordThinkTime(int level, long nanos) {
+        if (level > 0 && level < THINK_TIME.length) {
+            THINK_TIME[level].record(nanos);
+        }
+    }
+
+    /**
+     * Think time histogram of a level.
+     */
+    public static LatencyHistogram getThinkTime(int level) {
+        return THINK_TIME[level];
+    }
+
+    /**
+     * Count a lifeline being used.
+     */
+    public static void recordLifeline(String lifeline) {
+        switch (lifeline) {
+            case Lifelines.FIFTY_FIFTY:
+                LIFELINE_USES[0].increment();
+                break;
+            case Lifelines.PHONE_FRIEND:
+                LIFELINE_USES[1].increment();
+                break;
+            case Lifelines.ASK_AUDIENCE:
+                LIFELINE_USES[2].increment();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Register every metric with the platform MBean server. Calling again does nothing.
+     */
+    public static synchronized void registerMBeans() {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(RENDER, new ObjectName("millionaire:type=Latency,name=render"));
+            server.registerMBean(QUESTION_FETCH, new ObjectName("millionaire:type=Latency,name=questionFetch"));
+            for (int level = 1; level < THINK_TIME.length; level++) {
+                server.registerMBean(THINK_TIME[level], new ObjectName("millionaire:type=ThinkTime,level=" + level));
+            }
+            server.registerMBean(LIFELINE_COUNTS, new ObjectName("millionaire:type=Lifelines"));
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBeans", e);
+        }
+        registered = true;
+    }
+
+    /**
+     * Append a timestamped dump of every metric to the given file every period, on a daemon thread.
+     */
+    public static synchronized void startDump(Path path, long period, TimeUnit unit) {
+        if (dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleWithFixedDelay(() -> {
+                try (PrintStream out = new PrintStream(Files.newOutputStream(path,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND), false, StandardCharsets.UTF_8)) {
+                    dump(out);
+                } catch (IOException e) {
+                    System.err.println("Metrics dump failed: " + e.getMessage());
+                }
+            }, period, period, unit);
+        }
+    }
+
+    /**
+     * Print every metric as text, one line each.
+     */
+    public static void dump(PrintStream out) {
+        out.println("# " + Instant.now());
+        out.println(RENDER);
+        out.println(QUESTION_FETCH);
+        for (int level = 1; level < THINK_TIME.length; level++) {
+            if (THINK_TIME[level].getCount() > 0) {
+                out.println(THINK_TIME[level]);
+            }
+        }
+        out.printf("%-28s 50:50=%d phone=%d audience=%d%n", "lifelines",
+                LIFELINE_COUNTS.getFiftyFifty(), LIFELINE_COUNTS.getPhoneAFriend(), LIFELINE_COUNTS.getAskTheAudience());
+        out.println();
+    }
+
+    /**
+     * JMX view of the lifeline counts.
+     */
+    public interface LifelinesMXBean {
+
+        long getFiftyFifty();
+
+        long getPhoneAFriend();
+
+        long getAskTheAudience();
+    }
+
+    private static final class LifelineCounts implements LifelinesMXBean {
+
+        @Override
+        public long getFiftyFifty() {
+            return LIFELINE_USES[0].sum();
+        }
+
+        @Override
+        public long getPhoneAFriend() {
+            return LIFELINE_USES[1].sum();
+        }
+
+        @Override
+        public long getAskTheAudience() {
+            return LIFELINE_USES[2].sum();
+        }
+    }
+}
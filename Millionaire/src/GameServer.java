@@ -0,0 +1,467 @@
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hosts the game for remote players over TCP (telnet-style).
+ * Every connection plays its own {@link Game} on its own virtual thread,
+ * with the connection as its input and a renderer writing to the connection
+ * as its output. All sessions share one question bank.
+ *
+ * Games are recorded in a {@link SessionJournal} (the millionaire.journal
+ * property, empty to turn it off). After a restart the journal is replayed
+ * and players continue where they were by entering their resume code.
+ * The same question bank must be used again for resumed games.
+ * Final results go to a {@link Leaderboard} saved every 30 seconds
+ * (the millionaire.leaderboard property, empty to turn it off), and
+ * per-question {@link QuestionAnalytics} are exported every minute
+ * (the millionaire.analytics property). {@link GameMetrics} are registered
+ * over JMX and appended to a text log every minute (the millionaire.metrics
+ * property). New games can be recorded for {@link SessionReplay} into the
+ * directory of the millionaire.recordings property (off by default).
+ *
+ * When the millionaire.spectators property names a port (off by default),
+ * every game is a show that spectators can join on that port with the show
+ * number the player sees. Ask the Audience then takes the spectators' votes,
+ * see {@link LiveAudience}. Spectators are hung up on when the game ends.
+ *
+ * Usage: java GameServer [port] [question file]
+ */
+public class GameServer {
+
+    public static final int DEFAULT_PORT = 2323;
+
+    // Telnet clients expect CRLF and rarely report their size; assume a standard terminal
+    static final String LINE_SEPARATOR = "\r\n";
+    static final int TERMINAL_ROWS = 24;
+    // How long spectators have to vote in Ask the Audience
+    static final int VOTING_SECONDS = 10;
+    // Messages waiting for a spectator; more are dropped until they read
+    private static final int SPECTATOR_BACKLOG = 16;
+    // Last entry of a spectator's outbox
+    private static final Object HANG_UP = new Object();
+
+    private final QuestionBank questionBank;
+    private final SessionJournal journal;
+    private Leaderboard leaderboard;
+    private PrizeLadder ladder = PrizeLadder.configured();
+    private Path recordings = SessionRecording.configuredDirectory();
+    private final ExecutorService sessions;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private ServerSocket serverSocket;
+    private ServerSocket spectatorSocket;
+    // Shows being played, by show number
+    private final Map<Integer, Show> shows = new ConcurrentHashMap<>();
+    private final AtomicInteger showNumbers = new AtomicInteger();
+
+    public GameServer(QuestionBank questionBank) {
+        this(questionBank, null);
+    }
+
+    /**
+     * @param journal Journal recording every game, or null for none
+     */
+    public GameServer(QuestionBank questionBank, SessionJournal journal) {
+        this.questionBank = questionBank;
+        this.journal = journal;
+        ladder.checkQuestions(questionBank);
+        this.sessions = newSessionExecutor();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        QuestionBank bank = args.length > 1 ? QuestionBank.fromFile(Path.of(args[1])) : QuestionBank.shared();
+        SessionJournal journal = null;
+        String journalFile = System.getProperty("millionaire.journal", "millionaire-sessions.journal");
+        if (!journalFile.isEmpty()) {
+            long start = System.nanoTime();
+            journal = SessionJournal.open(Path.of(journalFile), 5);
+            System.out.printf("Recovered %,d games from %s in %.2f s%n", journal.getRecoveredSessions().size(),
+                    journalFile, (System.nanoTime() - start) / 1e9);
+        }
+        GameServer server = new GameServer(bank, journal);
+        String leaderboardFile = System.getProperty("millionaire.leaderboard", "millionaire-leaderboard.dat");
+        if (!leaderboardFile.isEmpty()) {
+            Leaderboard leaderboard = Leaderboard.open(Path.of(leaderboardFile), 100);
+            leaderboard.startSnapshots(30, TimeUnit.SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(leaderboard::snapshot));
+            server.setLeaderboard(leaderboard);
+        }
+        String analyticsFile = System.getProperty("millionaire.analytics", "millionaire-analytics.csv");
+        if (!analyticsFile.isEmpty()) {
+            QuestionAnalytics.shared().startExport(Path.of(analyticsFile), 1, TimeUnit.MINUTES);
+        }
+        GameMetrics.registerMBeans();
+        String metricsFile = System.getProperty("millionaire.metrics", "millionaire-metrics.log");
+        if (!metricsFile.isEmpty()) {
+            GameMetrics.startDump(Path.of(metricsFile), 1, TimeUnit.MINUTES);
+        }
+        server.bind(new InetSocketAddress(port));
+        System.out.println("Millionaire server listening on port " + server.getPort());
+        String spectatorPort = System.getProperty("millionaire.spectators", "");
+        if (!spectatorPort.isEmpty()) {
+            server.bindSpectators(new InetSocketAddress(Integer.parseInt(spectatorPort)));
+            System.out.println("Spectators can join on port " + server.getSpectatorPort());
+        }
+        server.serve();
+    }
+
+    /**
+     * Start listening. Use port 0 for any free port.
+     */
+    public void bind(InetSocketAddress address) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(address, 1024);
+    }
+
+    /**
+     * Take spectators on the given address from now on and let them vote in
+     * every new game's Ask the Audience. Use port 0 for any free port.
+     */
+    public void bindSpectators(InetSocketAddress address) throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(address, 1024);
+        spectatorSocket = socket;
+        sessions.execute(this::serveSpectators);
+    }
+
+    /**
+     * Report every finished game to the given leaderboard.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * Play new sessions on the given prize ladder. Defaults to the one of the
+     * millionaire.ladder property, see {@link PrizeLadder#configured()}.
+     * @throws IllegalArgumentException if the question bank has no questions for one of its levels
+     */
+    public void setLadder(PrizeLadder ladder) {
+        ladder.checkQuestions(questionBank);
+        this.ladder = ladder;
+    }
+
+    /**
+     * Record every new game into the given directory, or none if null.
+     * Defaults to the millionaire.recordings property.
+     */
+    public void setRecordings(Path directory) {
+        this.recordings = directory;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getSpectatorPort() {
+        return spectatorSocket.getLocalPort();
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Accept connections until the server is closed.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    break;
+                }
+                System.err.println("Accept failed: " + e.getMessage());
+                continue;
+            }
+            sessions.execute(() -> runSession(socket));
+        }
+    }
+
+    /**
+     * Play one game on a connection, then hang up.
+     */
+    private void runSession(Socket socket) {
+        activeSessions.incrementAndGet();
+        int show = 0;
+        Game game = null;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            TUI.setRenderer(new FrameRenderer(socket.getOutputStream(), LINE_SEPARATOR, TERMINAL_ROWS));
+            InputReader input = new InputReader(socket);
+            InputReader.setCurrent(input);
+            game = new Game(questionBank, input, ladder);
+            boolean resumed = journal != null && startJournaled(game, input);
+            if (recordings != null && !resumed) {
+                game.record(recordings);
+            }
+            if (leaderboard != null) {
+                game.setLeaderboard(leaderboard, null);
+            }
+            if (spectatorSocket != null) {
+                LiveAudience audience = new LiveAudience();
+                show = showNumbers.incrementAndGet();
+                shows.put(show, new Show(audience));
+                game.setLiveAudience(audience, String.valueOf(show), VOTING_SECONDS, TimeUnit.SECONDS);
+            }
+            game.start();
+        } catch (NoSuchElementException | IOException e) {
+            // Player disconnected
+        } catch (RuntimeException e) {
+            System.err.println("Session ended with an error: " + e);
+        } finally {
+            // Also when the player left mid-game: stops the question timer and saves the recording
+            if (game != null) {
+                game.close();
+            }
+            TUI.setRenderer(null);
+            InputReader.setCurrent(null);
+            Show ended = shows.remove(show);
+            if (ended != null) {
+                ended.end();
+            }
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Accept spectators until the server is closed.
+     */
+    private void serveSpectators() {
+        while (!spectatorSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = spectatorSocket.accept();
+            } catch (IOException e) {
+                if (spectatorSocket.isClosed()) {
+                    break;
+                }
+                System.err.println("Accept failed: " + e.getMessage());
+                continue;
+            }
+            sessions.execute(() -> runSpectator(socket));
+        }
+    }
+
+    /**
+     * Let a spectator join a show and take their votes until they hang up or
+     * the show ends. Every line they enter is a vote in the show's open voting window.
+     * Everything sent to the spectator goes through their outbox to a writer
+     * of their own, so announcing a vote never waits on a slow spectator.
+     */
+    private void runSpectator(Socket socket) {
+        BlockingQueue<Object> outbox = new ArrayBlockingQueue<>(SPECTATOR_BACKLOG);
+        Consumer<LiveAudience.VotingWindow> announcer = null;
+        Show show = null;
+        sessions.execute(() -> writeSpectator(socket, outbox));
+        try {
+            socket.setTcpNoDelay(true);
+            InputReader in = new InputReader(socket);
+            outbox.offer("Show number: ");
+            String number = in.readLine();
+            try {
+                show = shows.get(Integer.parseInt(number.trim()));
+            } catch (NumberFormatException e) {
+                // Treated like an unknown show
+            }
+            if (show == null || !show.admit(socket)) {
+                outbox.offer("No such show." + LINE_SEPARATOR);
+                return;
+            }
+            LiveAudience audience = show.audience;
+            int voter = audience.join();
+            announcer = window -> {
+                StringJoiner options = new StringJoiner(", ");
+                Question question = window.getQuestion();
+                for (int i = 0; i < question.getOptionCount(); i++) {
+                    if (window.isInPlay(i)) {
+                        options.add(question.getOptionKey(i) + ": " + question.getOptionText(i));
+                    }
+                }
+                outbox.offer("Ask the Audience! " + question.getQuestion() + LINE_SEPARATOR
+                        + options + " - you have " + VOTING_SECONDS + " seconds to vote." + LINE_SEPARATOR);
+            };
+            audience.addListener(announcer);
+            outbox.offer("Joined show " + number.trim() + ". Vote when the player asks the audience." + LINE_SEPARATOR);
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                switch (audience.vote(voter, line)) {
+                    case COUNTED:
+                        outbox.offer("Vote counted." + LINE_SEPARATOR);
+                        break;
+                    case DUPLICATE:
+                        outbox.offer("You have already voted." + LINE_SEPARATOR);
+                        break;
+                    case INVALID:
+                        outbox.offer("That is not an option you can vote for." + LINE_SEPARATOR);
+                        break;
+                    default:
+                        outbox.offer("No vote is open." + LINE_SEPARATOR);
+                        break;
+                }
+            }
+        } catch (NoSuchElementException | IOException e) {
+            // Spectator disconnected, or the show ended
+        } finally {
+            if (announcer != null) {
+                show.audience.removeListener(announcer);
+                show.leave(socket);
+            }
+            // Nobody else adds to the outbox any more; if it is full, the spectator
+            // stopped reading and won't miss what is dropped
+            if (!outbox.offer(HANG_UP)) {
+                outbox.clear();
+                outbox.offer(HANG_UP);
+            }
+        }
+    }
+
+    /**
+     * Send a spectator's outbox to them, then hang up.
+     */
+    private static void writeSpectator(Socket socket, BlockingQueue<Object> outbox) {
+        try (socket) {
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            Object text;
+            while ((text = outbox.take()) != HANG_UP) {
+                out.write((String) text);
+                out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // Spectator gone; closing the socket ends their reader too
+        }
+    }
+
+    /**
+     * A game being played and the spectators watching it.
+     */
+    private static final class Show {
+
+        final LiveAudience audience;
+        private final Set<Socket> spectators = ConcurrentHashMap.newKeySet();
+        private volatile boolean ended;
+
+        Show(LiveAudience audience) {
+            this.audience = audience;
+        }
+
+        /**
+         * Add a spectator, unless the show has ended.
+         */
+        boolean admit(Socket socket) {
+            spectators.add(socket);
+            if (ended) {
+                spectators.remove(socket);
+                return false;
+            }
+            return true;
+        }
+
+        void leave(Socket socket) {
+            spectators.remove(socket);
+        }
+
+        /**
+         * Hang up on every spectator.
+         */
+        void end() {
+            ended = true;
+            for (Socket socket : spectators) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Already gone
+                }
+            }
+        }
+    }
+
+    /**
+     * Resume the player's recovered game if they have a code, else journal a new one.
+     * @return Whether a recovered game was resumed
+     */
+    private boolean startJournaled(Game game, InputReader input) {
+        Map<Long, SessionJournal.SessionState> recovered = journal.getRecoveredSessions();
+        SessionJournal.SessionState state = null;
+        if (!recovered.isEmpty()) {
+            TUI.printColor("Enter your resume code, or press ENTER for a new game: ", TUI.YELLOW);
+            TUI.flush();
+            String code = input.readLine();
+            TUI.getRenderer().inputEcho(code == null ? "" : code);
+            if (code != null && !code.isBlank()) {
+                try {
+                    state = recovered.remove(Long.parseLong(code.trim(), 16));
+                } catch (NumberFormatException e) {
+                    // Treated like an unknown code
+                }
+                if (state == null) {
+                    TUI.printlnColor("Unknown resume code, starting a new game.", TUI.RED);
+                }
+            }
+        }
+
+        if (state != null) {
+            game.resume(journal, state);
+            return true;
+        }
+        long sessionId;
+        do {
+            sessionId = ThreadLocalRandom.current().nextLong(1L << 40);
+        } while (recovered.containsKey(sessionId));
+        game.enableJournal(journal, sessionId);
+        return false;
+    }
+
+    /**
+     * Stop accepting connections. Running sessions play on until they hang up.
+     */
+    public void close() throws IOException {
+        serverSocket.close();
+        if (spectatorSocket != null) {
+            spectatorSocket.close();
+        }
+        sessions.shutdown();
+    }
+
+    /**
+     * One virtual thread per task where the JDK has them (21+),
+     * otherwise a cached pool of platform threads.
+     */
+    static ExecutorService newSessionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(null, runnable, "session", 256 * 1024);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
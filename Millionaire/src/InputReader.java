@@ -0,0 +1,396 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The one source of player input for a session.
+ *
+ * Bytes arrive from a channel, read by a pump thread, from a socket, read by
+ * the thread waiting for a line, or are handed in with {@link #feed(ByteBuffer)}
+ * by whoever owns the connection. They collect
+ * in a single reusable buffer that every prompt reads lines from, so nothing
+ * typed ahead is lost between prompts and reading a line allocates only the
+ * returned String. Lines are cut off at {@link #MAX_LINE} bytes, so a
+ * connection that never sends a line break can't make the buffer grow.
+ *
+ * Besides a plain blocking {@link #readLine()}, lines can be read with a
+ * timeout or polled without blocking, and a waiting reader can be woken up,
+ * e.g. by a question timer.
+ */
+public class InputReader implements Closeable {
+
+    private static final int READ_SIZE = 4096;
+    // Longest line a player may type; anything beyond is dropped
+    static final int MAX_LINE = 1024;
+
+    // Standard input can only be read by one reader per process
+    private static class StandardInput {
+        static final InputReader READER = new InputReader(Channels.newChannel(System.in));
+    }
+
+    // Each thread (one per session) reads from its own player
+    private static final ThreadLocal<InputReader> current =
+        ThreadLocal.withInitial(() -> StandardInput.READER);
+
+    private final ReadableByteChannel channel;
+    private final Socket socket;
+    private final InputStream socketInput;
+    // Socket reads land here before they are fed in, as they happen without the lock
+    private final byte[] received;
+    private int socketTimeout;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition lineAvailable = lock.newCondition();
+
+    // Unread input is bytes[start, end)
+    private byte[] bytes = new byte[READ_SIZE];
+    private int start;
+    private int end;
+    // Where the search for the next line break resumes
+    private int scanned;
+    // Length of the unterminated line at the end of the input so far
+    private int lineLength;
+    private boolean endOfInput;
+    private boolean wakeUpPending;
+
+    /**
+     * Reader whose input is handed in through {@link #feed(ByteBuffer)}.
+     */
+    public InputReader() {
+        this.channel = null;
+        this.socket = null;
+        this.socketInput = null;
+        this.received = null;
+    }
+
+    /**
+     * Reader pumping input from a channel on a daemon thread.
+     * @param channel Channel to read, in blocking mode
+     */
+    public InputReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.socket = null;
+        this.socketInput = null;
+        this.received = null;
+        Thread pump = new Thread(this::pump, "input-pump");
+        pump.setDaemon(true);
+        pump.start();
+    }
+
+    /**
+     * Reader of a connected socket, which needs no thread of its own: the
+     * thread reading a line reads the socket, with the read timeout set to
+     * the time it is willing to wait. {@link #wakeUp()} only takes effect
+     * once such a read returns, so readers that need waking should pass a timeout.
+     */
+    public InputReader(Socket socket) throws IOException {
+        this.channel = null;
+        this.socket = socket;
+        this.socketInput = socket.getInputStream();
+        this.received = new byte[READ_SIZE];
+    }
+
+    /**
+     * The reader prompts on the current thread read from (standard input by default).
+     */
+    public static InputReader current() {
+        return current.get();
+    }
+
+    /**
+     * Make prompts on the current thread read from the given reader,
+     * or from standard input again if it is null.
+     */
+    public static void setCurrent(InputReader reader) {
+        if (reader == null) {
+            current.remove();
+        } else {
+            current.set(reader);
+        }
+    }
+
+    /**
+     * Read the next line, waiting as long as it takes.
+     * @return The line without its line break, or null if {@link #wakeUp()} was called
+     * @throws NoSuchElementException if the input has ended or the thread was interrupted
+     */
+    public String readLine() {
+        return readLine(-1, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Read the next line, waiting at most the given time.
+     * @param timeout Longest wait; negative to wait forever
+     * @return The line without its line break, or null on timeout or {@link #wakeUp()}
+     * @throws NoSuchElementException if the input has ended or the thread was interrupted
+     */
+    public String readLine(long timeout, TimeUnit unit) {
+        long remaining = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + remaining;
+        lock.lock();
+        try {
+            while (true) {
+                String line = takeLine();
+                if (line != null) {
+                    return line;
+                }
+                if (endOfInput) {
+                    throw new NoSuchElementException("No line found");
+                }
+                if (wakeUpPending) {
+                    wakeUpPending = false;
+                    return null;
+                }
+                if (timeout >= 0 && remaining <= 0) {
+                    return null;
+                }
+                if (socket != null) {
+                    lock.unlock();
+                    try {
+                        receive(timeout < 0 ? 0 : remaining);
+                    } finally {
+                        lock.lock();
+                    }
+                    remaining = deadline - System.nanoTime();
+                } else if (timeout < 0) {
+                    lineAvailable.await();
+                } else {
+                    remaining = lineAvailable.awaitNanos(remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Nobody is going to read on, so there is nothing to wait for
+            Thread.currentThread().interrupt();
+            throw new NoSuchElementException("Interrupted while waiting for input");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the next line if one has arrived, without waiting.
+     * @return The line, or null if no complete line is buffered
+     */
+    public String pollLine() {
+        lock.lock();
+        try {
+            return takeLine();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Check if a complete line is waiting to be read.
+     */
+    public boolean hasLine() {
+        lock.lock();
+        try {
+            return findLineBreak() >= 0 || (endOfInput && start < end);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Make a waiting (or the next) read return null without a line.
+     */
+    public void wakeUp() {
+        lock.lock();
+        try {
+            wakeUpPending = true;
+            lineAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand in bytes received for this session. Consumes the buffer's remaining bytes.
+     */
+    public void feed(ByteBuffer input) {
+        lock.lock();
+        try {
+            int length = input.remaining();
+            ensureCapacity(length);
+            input.get(bytes, end, length);
+            dropOverlong(end, end + length);
+            if (findLineBreak() >= 0) {
+                lineAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mark the input as ended; a last unterminated line can still be read.
+     */
+    public void endOfInput() {
+        lock.lock();
+        try {
+            endOfInput = true;
+            lineAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEndOfInput() {
+        lock.lock();
+        try {
+            return endOfInput && start == end;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        endOfInput();
+        if (channel != null) {
+            channel.close();
+        }
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    /**
+     * Read what the socket has, waiting at most the given time. Called without the lock.
+     * @param timeoutNanos Longest wait; 0 to wait forever
+     */
+    private void receive(long timeoutNanos) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        try {
+            // Whole milliseconds, rounded up so a short wait doesn't become an endless one
+            int timeout = (int) Math.min(Integer.MAX_VALUE, (timeoutNanos + 999_999) / 1_000_000);
+            if (timeout != socketTimeout) {
+                socket.setSoTimeout(timeout);
+                socketTimeout = timeout;
+            }
+            int read = socketInput.read(received);
+            if (read < 0) {
+                endOfInput();
+            } else {
+                feed(ByteBuffer.wrap(received, 0, read));
+            }
+        } catch (SocketTimeoutException e) {
+            // The caller checks its time
+        } catch (IOException e) {
+            // Connection lost; treated as the end of input
+            endOfInput();
+        }
+    }
+
+    /**
+     * Move channel input into the line buffer until the channel ends.
+     */
+    private void pump() {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+        try {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                feed(buffer);
+                buffer.clear();
+            }
+        } catch (ClosedChannelException e) {
+            // Closed by this reader
+        } catch (IOException e) {
+            // Connection lost; treated as the end of input
+        } finally {
+            endOfInput();
+        }
+    }
+
+    /**
+     * Append bytes[from, to) to the input, minus whatever goes past
+     * {@link #MAX_LINE} in a line. Caller holds the lock.
+     */
+    private void dropOverlong(int from, int to) {
+        int kept = from;
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '\n') {
+                lineLength = 0;
+            } else if (lineLength < MAX_LINE) {
+                lineLength++;
+            } else {
+                continue;
+            }
+            bytes[kept++] = b;
+        }
+        end = kept;
+    }
+
+    /**
+     * Remove and decode the next line. Caller holds the lock.
+     */
+    private String takeLine() {
+        int lineBreak = findLineBreak();
+        int lineEnd;
+        int next;
+        if (lineBreak >= 0) {
+            lineEnd = lineBreak;
+            next = lineBreak + 1;
+        } else if (endOfInput && start < end) {
+            lineEnd = end;
+            next = end;
+        } else {
+            return null;
+        }
+        if (lineEnd > start && bytes[lineEnd - 1] == '\r') {
+            lineEnd--;
+        }
+        String line = new String(bytes, start, lineEnd - start, StandardCharsets.UTF_8);
+        start = next;
+        scanned = next;
+        if (start == end) {
+            start = 0;
+            end = 0;
+            scanned = 0;
+            lineLength = 0;
+        }
+        return line;
+    }
+
+    private int findLineBreak() {
+        for (int i = Math.max(scanned, start); i < end; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        scanned = end;
+        return -1;
+    }
+
+    /**
+     * Make room for more bytes, first by dropping what was read, then by growing.
+     */
+    private void ensureCapacity(int length) {
+        if (end + length <= bytes.length) {
+            return;
+        }
+        int unread = end - start;
+        if (unread + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, unread + length));
+        }
+        System.arraycopy(bytes, start, bytes, 0, unread);
+        scanned -= start;
+        end = unread;
+        start = 0;
+    }
+}
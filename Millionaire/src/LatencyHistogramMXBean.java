@@ -0,0 +1,24 @@
+/**
+ * JMX view of a {@link LatencyHistogram}. Times are in microseconds.
+ */
+public interface LatencyHistogramMXBean {
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    /**
+     * Forget everything recorded so far.
+     */
+    void reset();
+}
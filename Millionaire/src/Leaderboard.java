@@ -0,0 +1,360 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Best results of finished games, for today, this week and all time.
+ *
+ * Each window keeps its top entries in stripes, each a small sorted array
+ * with its own lock. A session reports to the stripe picked by its thread,
+ * and results that would not make that stripe's top are turned away without
+ * locking, which is the fate of most games. A ranking query merges the
+ * stripes and caches the result until the next change, so queries stay cheap
+ * while many games end at once. Daily and weekly windows start over when
+ * their day (UTC) or week (from Monday) changes.
+ *
+ * The leaderboard can be saved as a compact snapshot and loaded back,
+ * periodically from a daemon thread if started.
+ */
+public class Leaderboard {
+
+    public enum Window { DAILY, WEEKLY, ALL_TIME }
+
+    private static final int SNAPSHOT_MAGIC = 0x4D4C4244; // "MLBD"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    /** Best first: higher prize, then higher level, then the earlier result. */
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong(Entry::getPrize).reversed()
+            .thenComparing(Comparator.comparingInt(Entry::getLevel).reversed())
+            .thenComparingLong(Entry::getTime);
+
+    private final int capacity;
+    private final int stripeCount;
+    private final List<AtomicReference<Board>> boards = new ArrayList<>();
+    private final AtomicLong changes = new AtomicLong();
+    private Path snapshotFile;
+    private long savedChanges = -1;
+    private ScheduledExecutorService snapshotter;
+
+    /**
+     * @param capacity Number of entries ranked per window
+     */
+    public Leaderboard(int capacity) {
+        this(capacity, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1);
+    }
+
+    /**
+     * @param capacity Number of entries ranked per window
+     * @param stripes Number of stripes, rounded up to a power of two
+     */
+    public Leaderboard(int capacity, int stripes) {
+        this.capacity = capacity;
+        this.stripeCount = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        long now = System.currentTimeMillis();
+        for (Window window : Window.values()) {
+            boards.add(new AtomicReference<>(new Board(epoch(window, now), stripeCount)));
+        }
+    }
+
+    /**
+     * Open a leaderboard saved at the given path, or an empty one if there is none.
+     * Later snapshots go to the same path.
+     */
+    public static Leaderboard open(Path path, int capacity) throws IOException {
+        Leaderboard leaderboard = new Leaderboard(capacity);
+        leaderboard.snapshotFile = path;
+        if (Files.exists(path)) {
+            leaderboard.load(path);
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Save a snapshot every period on a daemon thread, when something changed.
+     */
+    public synchronized void startSnapshots(long period, TimeUnit unit) {
+        if (snapshotFile == null) {
+            throw new IllegalStateException("No snapshot file; use Leaderboard.open");
+        }
+        if (snapshotter == null) {
+            snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "leaderboard-snapshots");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotter.scheduleWithFixedDelay(() -> {
+                try {
+                    snapshot();
+                } catch (UncheckedIOException e) {
+                    System.err.println("Leaderboard snapshot failed: " + e.getCause().getMessage());
+                }
+            }, period, period, unit);
+        }
+    }
+
+    /**
+     * Report the result of a finished game.
+     * @param player Name shown on the leaderboard
+     * @param prize Prize taken home
+     * @param level Last level answered correctly
+     */
+    public void record(String player, long prize, int level) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(player, prize, level, now);
+        int stripe = stripeOf(Thread.currentThread());
+        boolean changed = false;
+        for (Window window : Window.values()) {
+            changed |= currentBoard(window, now).stripes[stripe].offer(entry, capacity);
+        }
+        if (changed) {
+            changes.incrementAndGet();
+        }
+    }
+
+    /**
+     * The best entries of a window, best first.
+     * @param limit Largest number of entries wanted (at most the capacity)
+     */
+    public List<Entry> top(Window window, int limit) {
+        Board board = boards.get(window.ordinal()).get();
+        if (board.epoch != epoch(window, System.currentTimeMillis())) {
+            return List.of(); // nobody has played yet in this day or week
+        }
+        Entry[] ranked = board.ranked(capacity);
+        return List.of(Arrays.copyOf(ranked, Math.min(limit, ranked.length)));
+    }
+
+    /**
+     * Save the leaderboard if it changed since the last snapshot,
+     * through a temporary file so a crash never leaves half a snapshot.
+     */
+    public synchronized void snapshot() {
+        long version = changes.get();
+        if (version == savedChanges) {
+            return;
+        }
+        Path temporary = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeByte(Window.values().length);
+            for (Window window : Window.values()) {
+                Board board = boards.get(window.ordinal()).get();
+                Entry[] ranked = board.ranked(capacity);
+                out.writeLong(board.epoch);
+                out.writeInt(ranked.length);
+                for (Entry entry : ranked) {
+                    out.writeUTF(entry.player);
+                    out.writeLong(entry.prize);
+                    out.writeByte(entry.level);
+                    out.writeLong(entry.time);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        savedChanges = version;
+    }
+
+    private void load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a leaderboard snapshot: " + path);
+            }
+            int windows = in.readUnsignedByte();
+            for (int w = 0; w < windows; w++) {
+                Board board = new Board(in.readLong(), stripeCount);
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Entry entry = new Entry(in.readUTF(), in.readLong(), in.readUnsignedByte(), in.readLong());
+                    board.stripes[i % stripeCount].offer(entry, capacity);
+                }
+                if (w < boards.size()) {
+                    boards.get(w).set(board);
+                }
+            }
+        }
+        savedChanges = changes.get();
+    }
+
+    /**
+     * The board for the current day or week, starting a new one when it has turned over.
+     */
+    private Board currentBoard(Window window, long now) {
+        AtomicReference<Board> reference = boards.get(window.ordinal());
+        long epoch = epoch(window, now);
+        Board board = reference.get();
+        while (board.epoch < epoch) {
+            reference.compareAndSet(board, new Board(epoch, stripeCount));
+            board = reference.get();
+        }
+        return board;
+    }
+
+    private static long epoch(Window window, long millis) {
+        long day = Math.floorDiv(millis, DAY_MILLIS);
+        switch (window) {
+            case DAILY:
+                return day;
+            case WEEKLY:
+                return Math.floorDiv(day + 3, 7); // 1970-01-01 was a Thursday
+            default:
+                return 0;
+        }
+    }
+
+    private int stripeOf(Thread thread) {
+        long id = thread.getId() * 0x9E3779B97F4A7C15L;
+        return (int) (id >>> 40) & (stripeCount - 1);
+    }
+
+    /**
+     * One window's entries for one day, week or all time.
+     */
+    private static final class Board {
+
+        final long epoch;
+        final Stripe[] stripes;
+        // Merged ranking, published together with the stripe version it was built from
+        private final AtomicReference<Ranking> ranked = new AtomicReference<>();
+        private final AtomicLong version = new AtomicLong();
+
+        Board(long epoch, int stripeCount) {
+            this.epoch = epoch;
+            this.stripes = new Stripe[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new Stripe(version);
+            }
+        }
+
+        Entry[] ranked(int capacity) {
+            long current = version.get();
+            Ranking cached = ranked.get();
+            if (cached != null && cached.version == current) {
+                return cached.entries;
+            }
+            List<Entry> all = new ArrayList<>();
+            for (Stripe stripe : stripes) {
+                all.addAll(Arrays.asList(stripe.entries));
+            }
+            all.sort(RANKING);
+            Entry[] merged = all.subList(0, Math.min(capacity, all.size())).toArray(new Entry[0]);
+            // A rebuild that finishes late must not replace a newer one
+            ranked.accumulateAndGet(new Ranking(current, merged),
+                    (previous, built) -> previous != null && previous.version > built.version ? previous : built);
+            return merged;
+        }
+    }
+
+    /**
+     * A merged ranking and the board version it was built from.
+     */
+    private static final class Ranking {
+
+        final long version;
+        final Entry[] entries;
+
+        Ranking(long version, Entry[] entries) {
+            this.version = version;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * Sorted top entries reported through one stripe. Readers see an immutable array.
+     */
+    private static final class Stripe {
+
+        private final AtomicLong boardVersion;
+        volatile Entry[] entries = new Entry[0];
+        // Weakest entry once the stripe is full; anything not better is turned away unlocked
+        private volatile Entry floor;
+
+        Stripe(AtomicLong boardVersion) {
+            this.boardVersion = boardVersion;
+        }
+
+        boolean offer(Entry entry, int capacity) {
+            Entry weakest = floor;
+            if (weakest != null && RANKING.compare(entry, weakest) >= 0) {
+                return false;
+            }
+            synchronized (this) {
+                Entry[] current = entries;
+                int at = Arrays.binarySearch(current, entry, RANKING);
+                at = at < 0 ? -at - 1 : at;
+                if (at >= capacity) {
+                    return false;
+                }
+                int size = Math.min(current.length + 1, capacity);
+                Entry[] updated = new Entry[size];
+                System.arraycopy(current, 0, updated, 0, at);
+                updated[at] = entry;
+                System.arraycopy(current, at, updated, at + 1, size - at - 1);
+                entries = updated;
+                floor = size == capacity ? updated[size - 1] : null;
+                boardVersion.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * One result on the leaderboard.
+     */
+    public static final class Entry {
+
+        private final String player;
+        private final long prize;
+        private final int level;
+        private final long time;
+
+        Entry(String player, long prize, int level, long time) {
+            this.player = player;
+            this.prize = prize;
+            this.level = level;
+            this.time = time;
+        }
+
+        public String getPlayer() {
+            return player;
+        }
+
+        public long getPrize() {
+            return prize;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        /**
+         * When the game ended, in milliseconds since the epoch.
+         */
+        public long getTime() {
+            return time;
+        }
+    }
+}
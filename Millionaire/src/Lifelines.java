@@ -1,8 +1,8 @@
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
 
 /**
  * Manages lifelines for the Millionaire game.
@@ -10,19 +10,59 @@ import java.util.Random;
  */
 public class Lifelines {
     
-    private static final String FIFTY_FIFTY = "50/50";
-    private static final String PHONE_FRIEND = "Phone a Friend";
-    private static final String ASK_AUDIENCE = "Ask the Audience";
+    public static final String FIFTY_FIFTY = "50/50";
+    public static final String PHONE_FRIEND = "Phone a Friend";
+    public static final String ASK_AUDIENCE = "Ask the Audience";
     
     private ArrayList<String> availableLifelines;
-    private Random random;
+    // Each lifeline draws from its own stream
+    private RandomGenerator fiftyFiftyRandom;
+    private RandomGenerator friendRandom;
+    private RandomGenerator audienceRandom;
+    private boolean announce;
+    private QuestionAnalytics analytics;
+    private AudienceSimulation audience = AudienceSimulation.configured();
+    // Spectators voting instead of the simulated audience, if any
+    private LiveAudience liveAudience;
+    private long votingMillis;
+    // What the 50/50 left, so the audience only votes on those options
+    private Question fiftyFiftyQuestion;
+    private int fiftyFiftyKept = -1;
+    // Votes per option ordinal, reused by every poll
+    private int[] tallies = new int[4];
     
     public Lifelines() {
+        this(SessionRandom.newSession(), true);
+    }
+    
+    /**
+     * Create lifelines drawing from the lifeline streams of a session.
+     * @param random The session's random sources
+     * @param announce Whether results are printed to the terminal (false for headless play)
+     */
+    public Lifelines(SessionRandom random, boolean announce) {
+        this(random.fiftyFifty(), random.phoneAFriend(), random.askTheAudience(), announce);
+    }
+    
+    /**
+     * Create lifelines with a given random source.
+     * @param random Source of randomness for lifeline outcomes
+     * @param announce Whether results are printed to the terminal (false for headless play)
+     */
+    public Lifelines(RandomGenerator random, boolean announce) {
+        this(random, random, random, announce);
+    }
+    
+    private Lifelines(RandomGenerator fiftyFiftyRandom, RandomGenerator friendRandom, RandomGenerator audienceRandom,
+                      boolean announce) {
         this.availableLifelines = new ArrayList<>();
         this.availableLifelines.add(FIFTY_FIFTY);
         this.availableLifelines.add(PHONE_FRIEND);
         this.availableLifelines.add(ASK_AUDIENCE);
-        this.random = new Random();
+        this.fiftyFiftyRandom = fiftyFiftyRandom;
+        this.friendRandom = friendRandom;
+        this.audienceRandom = audienceRandom;
+        this.announce = announce;
     }
     
     /**
@@ -39,6 +79,50 @@ public class Lifelines {
         return availableLifelines.contains(lifeline);
     }
     
+    /**
+     * Count every lifeline used from now on in the given analytics (null for none).
+     */
+    public void setAnalytics(QuestionAnalytics analytics) {
+        this.analytics = analytics;
+    }
+    
+    /**
+     * Poll the given audience for Ask the Audience.
+     */
+    public void setAudience(AudienceSimulation audience) {
+        this.audience = audience;
+    }
+    
+    /**
+     * Let spectators vote in Ask the Audience instead of the simulated audience
+     * (null to go back to it). Asking the audience then waits until the voting
+     * time is up; if no spectator votes, the simulated audience answers.
+     * @param liveAudience The spectators of this game
+     * @param votingTime How long votes are taken
+     * @param unit Unit of the voting time
+     */
+    public void setLiveAudience(LiveAudience liveAudience, long votingTime, TimeUnit unit) {
+        this.liveAudience = liveAudience;
+        this.votingMillis = unit.toMillis(votingTime);
+    }
+    
+    /**
+     * Mark a lifeline as used without using it, e.g. when restoring a game.
+     */
+    public void markUsed(String lifeline) {
+        availableLifelines.remove(lifeline);
+    }
+    
+    /**
+     * Mark the 50/50 as used on a question, with the wrong option it kept,
+     * e.g. when restoring a game.
+     */
+    public void markFiftyFifty(Question question, int keptWrong) {
+        availableLifelines.remove(FIFTY_FIFTY);
+        fiftyFiftyQuestion = question;
+        fiftyFiftyKept = keptWrong;
+    }
+    
     /**
      * Check if any lifelines are available.
      */
@@ -56,48 +140,48 @@ public class Lifelines {
             throw new IllegalStateException("50/50 lifeline is not available!");
         }
         
-        Map<String, String> options = new HashMap<>(question.getOptions());
-        String correctKey = null;
+        int kept = pickFiftyFifty(question);
+        Map<String, String> remainingOptions = fiftyFiftyOptions(question, kept);
+        markFiftyFifty(question, kept);
         
-        // Find the key for the correct answer
-        for (Map.Entry<String, String> entry : options.entrySet()) {
-            if (entry.getValue().equals(question.getCorrectAnswer())) {
-                correctKey = entry.getKey();
-                break;
-            }
+        if (announce) {
+            TUI.printlnColor("\n" + "=".repeat(60), TUI.YELLOW);
+            TUI.printlnColor("50/50 LIFELINE USED!", TUI.BOLD + TUI.YELLOW);
+            TUI.printlnColor("Two incorrect answers have been removed.", TUI.WHITE);
+            TUI.printlnColor("=".repeat(60) + "\n", TUI.YELLOW);
         }
         
-        if (correctKey == null) {
+        return remainingOptions;
+    }
+    
+    /**
+     * The options left by a 50/50: the correct one and the kept wrong one.
+     * @param question The current question
+     * @param keptWrong Ordinal of the wrong option that remains
+     */
+    public static Map<String, String> fiftyFiftyOptions(Question question, int keptWrong) {
+        int correct = question.getCorrectIndex();
+        Map<String, String> remainingOptions = new HashMap<>();
+        remainingOptions.put(question.getOptionKey(correct), question.getOptionText(correct));
+        remainingOptions.put(question.getOptionKey(keptWrong), question.getOptionText(keptWrong));
+        return remainingOptions;
+    }
+    
+    /**
+     * Pick the wrong option a 50/50 keeps next to the correct one.
+     * Works on option ordinals and allocates nothing; does not use up the lifeline.
+     * @param question The current question
+     * @return Ordinal of the wrong option that remains
+     */
+    public int pickFiftyFifty(Question question) {
+        int correct = question.getCorrectIndex();
+        if (correct < 0) {
             throw new RuntimeException("Could not find correct answer in options!");
         }
         
-        // Get all incorrect keys
-        List<String> incorrectKeys = new ArrayList<>();
-        for (String key : options.keySet()) {
-            if (!key.equals(correctKey)) {
-                incorrectKeys.add(key);
-            }
-        }
-        
-        // Remove 2 random incorrect answers
-        while (incorrectKeys.size() > 1) {
-            int randomIndex = random.nextInt(incorrectKeys.size());
-            incorrectKeys.remove(randomIndex);
-        }
-        
-        // Create new map with only correct answer and one wrong answer
-        Map<String, String> remainingOptions = new HashMap<>();
-        remainingOptions.put(correctKey, options.get(correctKey));
-        remainingOptions.put(incorrectKeys.get(0), options.get(incorrectKeys.get(0)));
-        
-        availableLifelines.remove(FIFTY_FIFTY);
-        
-        TUI.printlnColor("\n" + "=".repeat(60), TUI.YELLOW);
-        TUI.printlnColor("50/50 LIFELINE USED!", TUI.BOLD + TUI.YELLOW);
-        TUI.printlnColor("Two incorrect answers have been removed.", TUI.WHITE);
-        TUI.printlnColor("=".repeat(60) + "\n", TUI.YELLOW);
-        
-        return remainingOptions;
+        // Draw among the wrong ordinals by skipping over the correct one
+        int kept = fiftyFiftyRandom.nextInt(question.getOptionCount() - 1);
+        return kept >= correct ? kept + 1 : kept;
     }
     
     /**
@@ -112,128 +196,149 @@ public class Lifelines {
         }
         
         String friendAnswer;
-        boolean isCorrect = random.nextDouble() < 0.70; // 70% chance
+        boolean isCorrect = friendRandom.nextDouble() < 0.70; // 70% chance
+        int correct = question.getCorrectIndex();
         
-        if (isCorrect) {
-            // Find correct answer key
-            for (Map.Entry<String, String> entry : question.getOptions().entrySet()) {
-                if (entry.getValue().equals(question.getCorrectAnswer())) {
-                    friendAnswer = entry.getKey();
-                    availableLifelines.remove(PHONE_FRIEND);
-                    
-                    TUI.printlnColor("\n" + "=".repeat(60), TUI.CYAN);
-                    TUI.printlnColor("PHONE A FRIEND LIFELINE USED!", TUI.BOLD + TUI.CYAN);
-                    TUI.printColor("Your friend says: \"I'm ", TUI.WHITE);
-                    TUI.printColor(String.valueOf((random.nextInt(40) + 60)) + "%", TUI.BOLD + TUI.GREEN);
-                    TUI.printlnColor(" sure the answer is " + friendAnswer + "!\"", TUI.WHITE);
-                    TUI.printlnColor("=".repeat(60) + "\n", TUI.CYAN);
-                    
-                    return friendAnswer;
-                }
+        if (isCorrect && correct >= 0) {
+            friendAnswer = question.getOptionKey(correct);
+            availableLifelines.remove(PHONE_FRIEND);
+            // Drawn even when silent so headless and interactive games consume the same randomness
+            int confidence = friendRandom.nextInt(40) + 60;
+            
+            if (announce) {
+                TUI.printlnColor("\n" + "=".repeat(60), TUI.CYAN);
+                TUI.printlnColor("PHONE A FRIEND LIFELINE USED!", TUI.BOLD + TUI.CYAN);
+                TUI.printColor("Your friend says: \"I'm ", TUI.WHITE);
+                TUI.printColor(confidence + "%", TUI.BOLD + TUI.GREEN);
+                TUI.printlnColor(" sure the answer is " + friendAnswer + "!\"", TUI.WHITE);
+                TUI.printlnColor("=".repeat(60) + "\n", TUI.CYAN);
             }
+            
+            return friendAnswer;
         }
         
         // 30% chance - give a random wrong answer
-        List<String> keys = new ArrayList<>(question.getOptions().keySet());
-        String correctKey = null;
-        for (Map.Entry<String, String> entry : question.getOptions().entrySet()) {
-            if (entry.getValue().equals(question.getCorrectAnswer())) {
-                correctKey = entry.getKey();
-                break;
+        int count = question.getOptionCount();
+        int wrong;
+        if (correct < 0) {
+            wrong = friendRandom.nextInt(count);
+        } else {
+            wrong = friendRandom.nextInt(count - 1);
+            if (wrong >= correct) {
+                wrong++;
             }
         }
-        if (correctKey != null) {
-            keys.remove(correctKey);
-        }
-        friendAnswer = keys.get(random.nextInt(keys.size()));
+        friendAnswer = question.getOptionKey(wrong);
         
         availableLifelines.remove(PHONE_FRIEND);
         
-        TUI.printlnColor("\n" + "=".repeat(60), TUI.CYAN);
-        TUI.printlnColor("PHONE A FRIEND LIFELINE USED!", TUI.BOLD + TUI.CYAN);
-        TUI.printColor("Your friend says: \"Hmm, I think it might be ", TUI.WHITE);
-        TUI.printColor(friendAnswer, TUI.YELLOW);
-        TUI.printlnColor(", but I'm not 100% sure...\"", TUI.WHITE);
-        TUI.printlnColor("=".repeat(60) + "\n", TUI.CYAN);
+        if (announce) {
+            TUI.printlnColor("\n" + "=".repeat(60), TUI.CYAN);
+            TUI.printlnColor("PHONE A FRIEND LIFELINE USED!", TUI.BOLD + TUI.CYAN);
+            TUI.printColor("Your friend says: \"Hmm, I think it might be ", TUI.WHITE);
+            TUI.printColor(friendAnswer, TUI.YELLOW);
+            TUI.printlnColor(", but I'm not 100% sure...\"", TUI.WHITE);
+            TUI.printlnColor("=".repeat(60) + "\n", TUI.CYAN);
+        }
         
         return friendAnswer;
     }
     
     /**
      * Use Ask the Audience lifeline.
-     * Shows percentage distribution biased toward correct answer.
+     * Shows how the audience voted, see {@link AudienceSimulation}.
      * @param question The current question
-     * @return Map of option keys to percentage votes
+     * @return Map of the keys of the options in play to percentage votes
      */
     public Map<String, Integer> useAskTheAudience(Question question) {
         if (!isAvailable(ASK_AUDIENCE)) {
             throw new IllegalStateException("Ask the Audience lifeline is not available!");
         }
         
-        Map<String, Integer> percentages = new HashMap<>();
-        List<String> keys = new ArrayList<>(question.getOptions().keySet());
-        String correctKey = null;
-        
-        // Find correct answer key
-        for (Map.Entry<String, String> entry : question.getOptions().entrySet()) {
-            if (entry.getValue().equals(question.getCorrectAnswer())) {
-                correctKey = entry.getKey();
-                break;
-            }
+        if (liveAudience != null && announce) {
+            TUI.printlnColor("\nThe audience has " + (votingMillis + 999) / 1000 + " seconds to vote...", TUI.PURPLE);
+            TUI.flush();
         }
+        int count = question.getOptionCount();
+        int[] votes = new int[count];
+        pollAudience(question, votes);
         
-        // Allocate percentages with bias toward correct answer
-        if (correctKey != null) {
-            // Correct answer gets 45-65% of votes
-            int correctPercent = 45 + random.nextInt(21);
-            percentages.put(correctKey, correctPercent);
-            
-            int remaining = 100 - correctPercent;
-            // Distribute remaining among wrong answers
-            for (String key : keys) {
-                if (!key.equals(correctKey)) {
-                    int percent = remaining / (keys.size() - 1);
-                    if (random.nextBoolean() && percent > 5) {
-                        percent += random.nextInt(10) - 5; // Add some variation
-                    }
-                    percentages.put(key, Math.max(5, Math.min(percent, remaining)));
-                    remaining -= Math.max(5, Math.min(percent, remaining));
-                }
-            }
-            
-            // Adjust for rounding errors
-            if (remaining != 0) {
-                String lastKey = keys.get(keys.size() - 1);
-                percentages.put(lastKey, percentages.get(lastKey) + remaining);
+        boolean reduced = question == fiftyFiftyQuestion;
+        Map<String, Integer> percentages = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (!reduced || i == fiftyFiftyKept || i == question.getCorrectIndex()) {
+                percentages.put(question.getOptionKey(i), votes[i]);
             }
         }
         
         availableLifelines.remove(ASK_AUDIENCE);
         
         // Display audience results
-        TUI.printlnColor("\n" + "=".repeat(60), TUI.PURPLE);
-        TUI.printlnColor("ASK THE AUDIENCE LIFELINE USED!", TUI.BOLD + TUI.PURPLE);
-        TUI.printlnColor("The audience votes:", TUI.WHITE);
-        System.out.println();
+        if (announce) {
+            TUI.printlnColor("\n" + "=".repeat(60), TUI.PURPLE);
+            TUI.printlnColor("ASK THE AUDIENCE LIFELINE USED!", TUI.BOLD + TUI.PURPLE);
+            TUI.printlnColor("The audience votes:", TUI.WHITE);
+            TUI.println();
         
-        for (String key : keys) {
-            int percent = percentages.get(key);
-            TUI.printColor("Option " + key + ": ", TUI.WHITE);
-            // Create a visual bar
-            int barLength = (percent / 2);
-            StringBuilder bar = new StringBuilder();
-            for (int i = 0; i < barLength; i++) {
-                bar.append("█");
+            for (int i = 0; i < count; i++) {
+                if (!percentages.containsKey(question.getOptionKey(i))) {
+                    continue; // removed by the 50/50
+                }
+                int percent = votes[i];
+                TUI.printColor("Option " + question.getOptionKey(i) + ": ", TUI.WHITE);
+                // Create a visual bar
+                TUI.printColor("█".repeat(percent / 2), TUI.GREEN);
+                TUI.printlnColor(" " + percent + "%", TUI.BOLD + TUI.YELLOW);
             }
-            TUI.printColor(bar.toString(), TUI.GREEN);
-            TUI.printlnColor(" " + percent + "%", TUI.BOLD + TUI.YELLOW);
-        }
         
-        TUI.printlnColor("=".repeat(60) + "\n", TUI.PURPLE);
+            TUI.printlnColor("=".repeat(60) + "\n", TUI.PURPLE);
+        }
         
         return percentages;
     }
     
+    /**
+     * Poll the audience on a question: every member votes, for the correct
+     * answer if they know it, otherwise for any option a 50/50 left in play.
+     * Draws a single seed from the lifeline's stream; does not use up the lifeline.
+     * With a live audience, takes the spectators' votes instead.
+     * @param question The current question
+     * @param percentages Filled with the percentage per option ordinal, 0 for options removed by a 50/50
+     */
+    public void pollAudience(Question question, int[] percentages) {
+        int count = question.getOptionCount();
+        int keptWrong = question == fiftyFiftyQuestion ? fiftyFiftyKept : -1;
+        if (tallies.length < count) {
+            tallies = new int[count];
+        }
+        long seed = audienceRandom.nextLong();
+        if (liveAudience == null || !takeVotes(question, keptWrong, count)) {
+            audience.vote(question, keptWrong, seed, tallies);
+        }
+        AudienceSimulation.toPercentages(tallies, count, percentages);
+    }
+    
+    /**
+     * Open a voting window for the spectators, wait for it to close and
+     * count the votes into the tallies.
+     * @return Whether anyone voted
+     */
+    private boolean takeVotes(Question question, int keptWrong, int count) {
+        LiveAudience.VotingWindow window = liveAudience.open(question, keptWrong, votingMillis, TimeUnit.MILLISECONDS);
+        try {
+            window.awaitClose();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // count what came in so far
+        }
+        window.close();
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            tallies[i] = window.getVotes(i);
+            total += tallies[i];
+        }
+        return total > 0;
+    }
+    
     /**
      * Use a lifeline by name.
      * @param lifelineName Name of the lifeline
@@ -244,6 +349,10 @@ public class Lifelines {
         if (!isAvailable(lifelineName)) {
             throw new IllegalStateException("Lifeline '" + lifelineName + "' is not available!");
         }
+        if (analytics != null) {
+            analytics.recordLifeline(question, lifelineName);
+        }
+        GameMetrics.recordLifeline(lifelineName);
         
         switch (lifelineName) {
             case FIFTY_FIFTY:
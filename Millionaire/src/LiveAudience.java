@@ -0,0 +1,241 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * The spectators of a hosted game, voting for real in Ask the Audience
+ * instead of the {@link AudienceSimulation}.
+ *
+ * Every spectator joins once and gets a voter ID. When the player asks the
+ * audience, {@link Lifelines} opens a {@link VotingWindow} for a few seconds;
+ * spectators vote from their own connections while it is open, and closing
+ * it gives the same percentages per option as the simulated audience.
+ *
+ * Voting takes no locks: votes are counted in striped {@link LongAdder}s,
+ * one per option, and each voter's vote is claimed with a single
+ * compare-and-set on a bitset holding one bit per voter ID.
+ */
+public final class LiveAudience {
+
+    /**
+     * What became of a vote.
+     */
+    public enum Vote {
+        COUNTED,
+        /** The voter has already voted in this window. */
+        DUPLICATE,
+        /** No such option, an option removed by a 50/50, or a voter who joined after the window opened. */
+        INVALID,
+        /** No window is open. */
+        CLOSED
+    }
+
+    private final AtomicInteger voters = new AtomicInteger();
+    private final Set<Consumer<VotingWindow>> listeners = ConcurrentHashMap.newKeySet();
+    private volatile VotingWindow window;
+
+    /**
+     * Join as a spectator.
+     * @return The spectator's voter ID
+     */
+    public int join() {
+        return voters.getAndIncrement();
+    }
+
+    public int getVoterCount() {
+        return voters.get();
+    }
+
+    /**
+     * Call the listener on every window opened from now on, e.g. to tell a
+     * spectator to vote. Listeners are called by the game's thread before the
+     * voting time starts, so they must hand the news on rather than block.
+     */
+    public void addListener(Consumer<VotingWindow> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<VotingWindow> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Open a window for votes on a question, closing the one before if still open.
+     * Votes are taken right away, but the time for them only starts running
+     * once every listener has been told.
+     * @param question The question asked
+     * @param keptWrong Ordinal of the wrong option a 50/50 left, or -1 if all options are in play
+     * @param duration How long votes are taken
+     * @param unit Unit of the duration
+     */
+    public VotingWindow open(Question question, int keptWrong, long duration, TimeUnit unit) {
+        VotingWindow previous = window;
+        if (previous != null) {
+            previous.close();
+        }
+        VotingWindow opened = new VotingWindow(question, keptWrong, voters.get(), unit.toNanos(duration));
+        window = opened;
+        for (Consumer<VotingWindow> listener : listeners) {
+            listener.accept(opened);
+        }
+        opened.start();
+        return opened;
+    }
+
+    /**
+     * The window taking votes, or null if there is none.
+     */
+    public VotingWindow getWindow() {
+        VotingWindow current = window;
+        return current != null && current.isOpen() ? current : null;
+    }
+
+    /**
+     * Vote in the open window.
+     * @param voterId The ID the voter got on {@link #join()}
+     * @param key Key of the option voted for
+     */
+    public Vote vote(int voterId, String key) {
+        VotingWindow current = window;
+        return current == null ? Vote.CLOSED : current.vote(voterId, key);
+    }
+
+    /**
+     * The votes on one question.
+     */
+    public static final class VotingWindow {
+
+        private final Question question;
+        private final boolean[] inPlay;
+        private final LongAdder[] votes;
+        // One bit per voter ID, set once the voter has voted
+        private final AtomicLongArray voted;
+        private final int voterLimit;
+        private final long durationNanos;
+        private volatile long deadlineNanos;
+        private volatile boolean started;
+        private volatile boolean closed;
+        private volatile int[] tallies;
+
+        VotingWindow(Question question, int keptWrong, int voterLimit, long durationNanos) {
+            this.question = question;
+            int count = question.getOptionCount();
+            this.inPlay = new boolean[count];
+            this.votes = new LongAdder[count];
+            for (int i = 0; i < count; i++) {
+                inPlay[i] = keptWrong < 0 || i == keptWrong || i == question.getCorrectIndex();
+                votes[i] = new LongAdder();
+            }
+            this.voted = new AtomicLongArray((voterLimit + 63) >>> 6);
+            this.voterLimit = voterLimit;
+            this.durationNanos = durationNanos;
+        }
+
+        /**
+         * Start the time for votes.
+         */
+        void start() {
+            deadlineNanos = System.nanoTime() + durationNanos;
+            started = true;
+        }
+
+        public Question getQuestion() {
+            return question;
+        }
+
+        /**
+         * Whether an option can be voted for.
+         */
+        public boolean isInPlay(int option) {
+            return inPlay[option];
+        }
+
+        public boolean isOpen() {
+            return !closed && (!started || deadlineNanos - System.nanoTime() > 0);
+        }
+
+        public long getRemainingMillis() {
+            if (closed) {
+                return 0;
+            }
+            long remaining = started ? deadlineNanos - System.nanoTime() : durationNanos;
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(remaining));
+        }
+
+        public Vote vote(int voterId, String key) {
+            return vote(voterId, question.indexOfOption(key));
+        }
+
+        /**
+         * Vote for an option by ordinal. Safe to call from any number of threads at once.
+         */
+        public Vote vote(int voterId, int option) {
+            if (!isOpen()) {
+                return Vote.CLOSED;
+            }
+            if (option < 0 || option >= inPlay.length || !inPlay[option] || voterId < 0 || voterId >= voterLimit) {
+                return Vote.INVALID;
+            }
+            int word = voterId >>> 6;
+            long bit = 1L << voterId;
+            long seen;
+            do {
+                seen = voted.get(word);
+                if ((seen & bit) != 0) {
+                    return Vote.DUPLICATE;
+                }
+            } while (!voted.compareAndSet(word, seen, seen | bit));
+            votes[option].increment();
+            return Vote.COUNTED;
+        }
+
+        /**
+         * Wait until the window's time is up or it is closed.
+         */
+        public void awaitClose() throws InterruptedException {
+            long remaining;
+            while (!closed && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            }
+        }
+
+        /**
+         * Stop taking votes and count them. A vote claimed at the very moment
+         * the window closes may be left out of the count.
+         * @return Map of the keys of the options in play to percentage votes
+         */
+        public synchronized Map<String, Integer> close() {
+            closed = true;
+            if (tallies == null) {
+                int[] counted = new int[votes.length];
+                for (int i = 0; i < votes.length; i++) {
+                    counted[i] = votes[i].intValue();
+                }
+                tallies = counted;
+            }
+            int[] percentages = new int[tallies.length];
+            AudienceSimulation.toPercentages(tallies, tallies.length, percentages);
+            Map<String, Integer> result = new HashMap<>();
+            for (int i = 0; i < tallies.length; i++) {
+                if (inPlay[i]) {
+                    result.put(question.getOptionKey(i), percentages[i]);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Votes counted for an option; final once the window is closed.
+         */
+        public int getVotes(int option) {
+            int[] counted = tallies;
+            return counted != null ? counted[option] : votes[option].intValue();
+        }
+    }
+}
@@ -1,3 +1,5 @@
+import java.nio.file.Path;
+
 public class Main {
     public static void main(String[] args) {
         try {
@@ -10,8 +12,14 @@ public class Main {
             }
 
             
-            // Create and start the game
-            Game game = new Game();
+            // Create and start the game, with an imported question bank if one is given
+            QuestionBank bank = args.length > 0 ? QuestionBank.fromFile(Path.of(args[0])) : QuestionBank.shared();
+            PrizeLadder.configured().checkQuestions(bank);
+            Game game = new Game(bank);
+            Path recordings = SessionRecording.configuredDirectory();
+            if (recordings != null) {
+                game.record(recordings);
+            }
             game.start();
             game.close();
             
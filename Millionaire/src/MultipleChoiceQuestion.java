@@ -15,7 +15,7 @@ public class MultipleChoiceQuestion extends Question {
      */
     @Override
     public void displayOptions() {
-        System.out.println();
+        TUI.println();
         TUI.printColor("╔═══════════════════════════════════════════════════════════════════╗\n", TUI.CYAN);
         TUI.printColor("║                           OPTIONS                                 ║\n", TUI.CYAN);
         TUI.printColor("╠═══════════════════════════════════════════════════════════════════╣\n", TUI.CYAN);
@@ -0,0 +1,68 @@
+/**
+ * Strategy that plays a headless game.
+ * Implementations are driven by {@link GameEngine#play(Player)}.
+ */
+public interface Player {
+
+    /**
+     * Decide the next move on the active question.
+     * @param game The running game; options and lifelines can be read from it
+     * @return An answer, a lifeline to use, or walking away
+     */
+    Move nextMove(GameEngine game);
+
+    /**
+     * Called when a new question becomes active.
+     */
+    default void onQuestion(int level, Question question) {
+    }
+
+    /**
+     * Called with the result of a lifeline this player asked for.
+     * @param lifeline Name of the lifeline used
+     * @param result String for Phone a Friend, Map for 50/50 and Ask the Audience
+     */
+    default void onLifelineResult(String lifeline, Object result) {
+    }
+
+    /**
+     * A single decision made by a player.
+     */
+    final class Move {
+
+        public enum Type { ANSWER, LIFELINE, WALK_AWAY }
+
+        private static final Move WALK = new Move(Type.WALK_AWAY, null);
+
+        private final Type type;
+        private final String value;
+
+        private Move(Type type, String value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        public static Move answer(String optionKey) {
+            return new Move(Type.ANSWER, optionKey);
+        }
+
+        public static Move lifeline(String lifelineName) {
+            return new Move(Type.LIFELINE, lifelineName);
+        }
+
+        public static Move walkAway() {
+            return WALK;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * The option key for answers, the lifeline name for lifelines, null otherwise.
+         */
+        public String getValue() {
+            return value;
+        }
+    }
+}
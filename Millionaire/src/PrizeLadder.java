@@ -1,10 +1,26 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Manages the prize ladder for the Millionaire game.
- * Implements 15 question levels with exponential prize increases and checkpoints.
+ * The standard ladder has 15 question levels with exponential prize increases
+ * and checkpoints at 5, 10 and 15; variant shows can build their own, with
+ * any number of levels up to {@link #MAX_LEVELS}, amounts beyond the int range
+ * and their own safety nets. Ladders are immutable, so any number of games
+ * can share one, and different games can play different ladders side by side.
+ *
+ * Prize, checkpoint flag and guaranteed prize are tabled per level when the
+ * ladder is built, so every lookup is a single array access. The ladder
+ * screen is pre-rendered too, for every current level with and without
+ * colors, so showing it on each question draws shared lines only.
  */
 public class PrizeLadder {
     
-    private static final int[] PRIZES = {
+    /** Largest number of levels a ladder may have. */
+    public static final int MAX_LEVELS = 50;
+    
+    private static final PrizeLadder STANDARD = new PrizeLadder(new long[] {
         100,      // Level 1
         200,      // Level 2
         300,      // Level 3
@@ -20,92 +36,253 @@ public class PrizeLadder {
         250_000,  // Level 13
         500_000,  // Level 14
         1_000_000 // Level 15 - Final prize
-    };
+    }, 5, 10, 15);
     
-    private static final int[] CHECKPOINTS = {5, 10, 15};
+    // Indexed by level; level 0 (nothing answered yet) holds 0
+    private final long[] prizes;
+    private final boolean[] checkpoints;
+    private final long[] guaranteed;
+    private final int[] guaranteedLevels;
+    // Ladder screen per current level (0 to levels + 1), plain and colored
+    private final String[][] plainScreens;
+    private final String[][] colorScreens;
     
     /**
-     * Get the prize amount for a given question level (1-15).
+     * @param prizes Prize of every level, from level 1 up, never decreasing
+     * @param checkpoints Levels whose prize is kept after a wrong answer later on
      */
-    public static int getPrize(int level) {
-        if (level < 1 || level > 15) {
-            return 0;
+    public PrizeLadder(long[] prizes, int... checkpoints) {
+        if (prizes.length == 0 || prizes.length > MAX_LEVELS) {
+            throw new IllegalArgumentException("A ladder needs 1 to " + MAX_LEVELS + " levels, not " + prizes.length);
+        }
+        int levels = prizes.length;
+        this.prizes = new long[levels + 1];
+        this.checkpoints = new boolean[levels + 1];
+        this.guaranteed = new long[levels + 1];
+        this.guaranteedLevels = new int[levels + 1];
+        for (int level = 1; level <= levels; level++) {
+            long prize = prizes[level - 1];
+            if (prize < this.prizes[level - 1]) {
+                throw new IllegalArgumentException("Prize of level " + level + " is below the level before it");
+            }
+            this.prizes[level] = prize;
         }
-        return PRIZES[level - 1];
+        for (int checkpoint : checkpoints) {
+            if (checkpoint < 1 || checkpoint > levels) {
+                throw new IllegalArgumentException("Checkpoint out of range: " + checkpoint);
+            }
+            this.checkpoints[checkpoint] = true;
+        }
+        for (int level = 1; level <= levels; level++) {
+            guaranteedLevels[level] = this.checkpoints[level] ? level : guaranteedLevels[level - 1];
+            guaranteed[level] = this.prizes[guaranteedLevels[level]];
+        }
+        this.plainScreens = renderScreens(false);
+        this.colorScreens = renderScreens(true);
     }
     
     /**
-     * Check if a level is a checkpoint (safety net).
+     * The standard 15-level ladder.
      */
-    public static boolean isCheckpoint(int level) {
-        for (int checkpoint : CHECKPOINTS) {
-            if (level == checkpoint) {
-                return true;
+    public static PrizeLadder standard() {
+        return STANDARD;
+    }
+    
+    /**
+     * Build a ladder from a comma separated list of prizes, lowest level first,
+     * with checkpoints marked by a trailing '*', e.g. "100,200,500*,1000,5000*".
+     * Underscores in amounts are ignored.
+     */
+    public static PrizeLadder parse(String spec) {
+        String[] parts = spec.split(",");
+        long[] prizes = new long[parts.length];
+        List<Integer> checkpoints = new ArrayList<>();
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i].trim().replace("_", "");
+            if (part.endsWith("*")) {
+                checkpoints.add(i + 1);
+                part = part.substring(0, part.length() - 1).trim();
+            }
+            try {
+                prizes[i] = Long.parseLong(part);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prize at level " + (i + 1) + ": " + parts[i]);
             }
         }
-        return false;
+        return new PrizeLadder(prizes, checkpoints.stream().mapToInt(Integer::intValue).toArray());
+    }
+    
+    /**
+     * The ladder named by the millionaire.ladder property (see {@link #parse}),
+     * or the standard one if it is not set.
+     */
+    public static PrizeLadder configured() {
+        String spec = System.getProperty("millionaire.ladder", "");
+        return spec.isBlank() ? STANDARD : parse(spec);
+    }
+    
+    /**
+     * Get the prize amount for a given question level, 0 outside the ladder.
+     */
+    public long getPrize(int level) {
+        return level >= 0 && level < prizes.length ? prizes[level] : 0;
+    }
+    
+    /**
+     * Check if a level is a checkpoint (safety net).
+     */
+    public boolean isCheckpoint(int level) {
+        return level >= 0 && level < checkpoints.length && checkpoints[level];
     }
     
     /**
      * Get the guaranteed prize at a checkpoint.
      * If the level is not a checkpoint, returns 0.
      */
-    public static int getCheckpointPrize(int level) {
-        if (isCheckpoint(level)) {
-            return getPrize(level);
-        }
-        return 0;
+    public long getCheckpointPrize(int level) {
+        return isCheckpoint(level) ? prizes[level] : 0;
     }
     
     /**
      * Get the guaranteed prize for the highest reached checkpoint.
      */
-    public static int getHighestCheckpointPrize(int currentLevel) {
-        int highestCheckpoint = 0;
-        for (int checkpoint : CHECKPOINTS) {
-            if (checkpoint <= currentLevel) {
-                highestCheckpoint = checkpoint;
-            } else {
-                break;
-            }
+    public long getHighestCheckpointPrize(int currentLevel) {
+        if (currentLevel < 0) {
+            return 0;
+        }
+        return guaranteed[Math.min(currentLevel, guaranteed.length - 1)];
+    }
+    
+    /**
+     * Get the level of the highest reached checkpoint, 0 if there is none.
+     */
+    public int getHighestCheckpoint(int currentLevel) {
+        if (currentLevel < 0) {
+            return 0;
         }
-        return highestCheckpoint > 0 ? getPrize(highestCheckpoint) : 0;
+        return guaranteedLevels[Math.min(currentLevel, guaranteedLevels.length - 1)];
+    }
+    
+    /**
+     * Prize of the last level, the one a winner takes home.
+     */
+    public long getTopPrize() {
+        return prizes[prizes.length - 1];
     }
     
     /**
      * Display the prize ladder with highlighting for current level.
      */
-    public static void displayLadder(int currentLevel) {
-        System.out.println(TUI.colorize("╔════════════════════════════════════════════╗", TUI.CYAN));
-        System.out.println(TUI.colorize("║         PRIZE LADDER                       ║", TUI.CYAN));
-        System.out.println(TUI.colorize("╠════════════════════════════════════════════╣", TUI.CYAN));
+    public void displayLadder(int currentLevel) {
+        String[][] screens = TUI.isColorsEnabled() ? colorScreens : plainScreens;
+        TUI.printLines(screens[Math.max(0, Math.min(currentLevel, screens.length - 1))]);
+    }
+    
+    /**
+     * Render the ladder screen for every current level. Each level's line
+     * has three looks (passed, current, upcoming); they are rendered once
+     * and shared between the screens. The prize column is as wide as the
+     * largest prize, and the box grows with it.
+     */
+    private String[][] renderScreens(boolean colors) {
+        int levels = getTotalLevels();
+        int prizeWidth = 15;
+        for (int i = 1; i <= levels; i++) {
+            prizeWidth = Math.max(prizeWidth, TUI.formatPrize(prizes[i]).length());
+        }
+        // " Level 15: " + prize + marker + " "
+        int width = Math.max(44, prizeWidth + 14);
+        String top = paint("╔" + "═".repeat(width) + "╗", TUI.CYAN, colors);
+        String title = paint("║" + pad("         PRIZE LADDER", width) + "║", TUI.CYAN, colors);
+        String rule = paint("╠" + "═".repeat(width) + "╣", TUI.CYAN, colors);
+        String bottom = paint("╚" + "═".repeat(width) + "╝", TUI.CYAN, colors);
+        String lineFormat = "║ Level %2s: %-" + prizeWidth + "s%s ";
         
-        for (int i = 15; i >= 1; i--) {
+        String[] passed = new String[levels + 1];
+        String[] current = new String[levels + 1];
+        String[] upcoming = new String[levels + 1];
+        for (int i = 1; i <= levels; i++) {
             String levelStr = String.format("%2d", i);
-            String prizeStr = TUI.formatPrize(PRIZES[i - 1]);
+            String prizeStr = TUI.formatPrize(prizes[i]);
             String checkpointMarker = isCheckpoint(i) ? " ✓" : "  ";
-            
-            String color = TUI.WHITE;
-            if (i == currentLevel) {
-                color = TUI.BOLD + TUI.YELLOW;
-            } else if (i < currentLevel) {
-                color = TUI.GREEN;
-            } else {
-                color = TUI.WHITE;
-            }
-            
-            String line = String.format("║ Level %2s: %-15s%s ║", levelStr, prizeStr, checkpointMarker);
-            System.out.println(TUI.colorize(line, color));
+            String line = pad(String.format(lineFormat, levelStr, prizeStr, checkpointMarker), width + 1) + "║";
+            passed[i] = paint(line, TUI.GREEN, colors);
+            current[i] = paint(line, TUI.BOLD + TUI.YELLOW, colors);
+            upcoming[i] = paint(line, TUI.WHITE, colors);
         }
         
-        System.out.println(TUI.colorize("╚════════════════════════════════════════════╝", TUI.CYAN));
+        String[][] screens = new String[levels + 2][];
+        for (int currentLevel = 0; currentLevel <= levels + 1; currentLevel++) {
+            String[] screen = new String[levels + 4];
+            screen[0] = top;
+            screen[1] = title;
+            screen[2] = rule;
+            for (int i = levels; i >= 1; i--) {
+                String line = i == currentLevel ? current[i] : i < currentLevel ? passed[i] : upcoming[i];
+                screen[3 + levels - i] = line;
+            }
+            screen[levels + 3] = bottom;
+            screens[currentLevel] = screen;
+        }
+        return screens;
+    }
+    
+    private static String pad(String text, int width) {
+        return text.length() >= width ? text : text + " ".repeat(width - text.length());
+    }
+    
+    private static String paint(String text, String color, boolean colors) {
+        return colors ? color + text + TUI.RESET : text;
     }
     
     /**
      * Get total number of levels.
      */
-    public static int getTotalLevels() {
-        return PRIZES.length;
+    public int getTotalLevels() {
+        return prizes.length - 1;
+    }
+    
+    /**
+     * Check that the bank has questions for every level of the ladder, so no
+     * game runs out of questions halfway up.
+     * @throws IllegalArgumentException naming the first level without questions
+     */
+    public void checkQuestions(QuestionBank bank) {
+        for (int level = 1; level <= getTotalLevels(); level++) {
+            if (!bank.hasQuestions(level)) {
+                throw new IllegalArgumentException("The prize ladder has " + getTotalLevels()
+                        + " levels, but the question bank has no questions for level " + level);
+            }
+        }
+    }
+    
+    /**
+     * The ladder in the form read by {@link #parse}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder spec = new StringBuilder();
+        for (int level = 1; level <= getTotalLevels(); level++) {
+            if (level > 1) {
+                spec.append(',');
+            }
+            spec.append(prizes[level]);
+            if (checkpoints[level]) {
+                spec.append('*');
+            }
+        }
+        return spec.toString();
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PrizeLadder
+                && Arrays.equals(prizes, ((PrizeLadder) other).prizes)
+                && Arrays.equals(checkpoints, ((PrizeLadder) other).checkpoints);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(prizes) + Arrays.hashCode(checkpoints);
     }
 }
-
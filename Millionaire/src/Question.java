@@ -1,5 +1,5 @@
+import java.util.Arrays;
 import java.util.Map;
-import java.util.Scanner;
 
 public abstract class Question {
 
@@ -9,6 +9,7 @@ public abstract class Question {
 
     public void setQuestion(String question) {
         this.question = question;
+        computeId();
     }
 
     public Map<String, String> getOptions() {
@@ -17,6 +18,7 @@ public abstract class Question {
 
     public void setOptions(Map<String, String> options) {
         this.options = options;
+        indexOptions();
     }
 
     public String getCorrectAnswer() {
@@ -25,6 +27,7 @@ public abstract class Question {
 
     public void setCorrectAnswer(String correctAnswer) {
         this.correctAnswer = correctAnswer;
+        indexOptions();
     }
 
     public int getDifficulty() {
@@ -49,6 +52,16 @@ public abstract class Question {
     private int difficulty;
     private int prize;
 
+    // Compact copy of the options: keys in sorted order, the text at the same ordinal,
+    // and the ordinal of the correct answer (-1 if it is not among the options)
+    private String[] optionKeys;
+    private String[] optionTexts;
+    private int correctIndex;
+    // Set when every key is a single character, which enables allocation-free lookups
+    private boolean singleCharKeys;
+    // Hash of the content, see getId()
+    private long id;
+
 
 
     public Question(String question, Map<String, String> options, String correctAnswer, int difficulty, int prize) {
@@ -57,7 +70,136 @@ public abstract class Question {
         this.correctAnswer = correctAnswer;
         this.difficulty = difficulty;
         this.prize = prize;
+        indexOptions();
+    }
+
+    /**
+     * Build the array form of the options and find the correct ordinal once.
+     */
+    private void indexOptions() {
+        optionKeys = options.keySet().toArray(new String[0]);
+        Arrays.sort(optionKeys);
+        optionTexts = new String[optionKeys.length];
+        correctIndex = -1;
+        singleCharKeys = true;
+        for (int i = 0; i < optionKeys.length; i++) {
+            optionTexts[i] = options.get(optionKeys[i]);
+            if (correctIndex < 0 && optionTexts[i].equals(correctAnswer)) {
+                correctIndex = i;
+            }
+            singleCharKeys &= optionKeys[i].length() == 1;
+        }
+        computeId();
+    }
+
+    /**
+     * Stable ID of this question, a 64-bit FNV-1a hash of its text, options and
+     * correct answer. It stays the same across runs, imports and question packs,
+     * and does not depend on the difficulty, so a question keeps its ID when it
+     * moves to another level.
+     */
+    public long getId() {
+        return id;
+    }
+
+    private void computeId() {
+        computeId(question);
+    }
+
+    /**
+     * Recompute the ID as if the question text were the given one, for
+     * question types that keep part of what is asked outside the text.
+     */
+    protected void computeId(String identityText) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hashText(hash, identityText);
+        for (int i = 0; i < optionKeys.length; i++) {
+            hash = hashText(hash, optionKeys[i]);
+            hash = hashText(hash, optionTexts[i]);
+        }
+        id = hashText(hash, correctAnswer);
+    }
+
+    private static long hashText(long hash, String text) {
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        // Separator, so that moving characters between fields changes the hash
+        return (hash ^ 0xFFFF) * 0x100000001b3L;
+    }
+
+    /**
+     * Number of options.
+     */
+    public int getOptionCount() {
+        return optionKeys.length;
+    }
 
+    /**
+     * Key of the option at an ordinal (keys are in sorted order).
+     */
+    public String getOptionKey(int index) {
+        return optionKeys[index];
+    }
+
+    /**
+     * Text of the option at an ordinal.
+     */
+    public String getOptionText(int index) {
+        return optionTexts[index];
+    }
+
+    /**
+     * Ordinal of the correct option, or -1 if the correct answer is not an option.
+     */
+    public int getCorrectIndex() {
+        return correctIndex;
+    }
+
+    /**
+     * Key of the correct option, or null if the correct answer is not an option.
+     */
+    public String getCorrectKey() {
+        return correctIndex < 0 ? null : optionKeys[correctIndex];
+    }
+
+    /**
+     * Find the ordinal of an option key, ignoring case and surrounding whitespace.
+     * @return The ordinal, or -1 if there is no such option
+     */
+    public int indexOfOption(String key) {
+        if (key == null) {
+            return -1;
+        }
+        int start = 0;
+        int end = key.length();
+        while (start < end && Character.isWhitespace(key.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(key.charAt(end - 1))) {
+            end--;
+        }
+        if (singleCharKeys) {
+            if (end - start != 1) {
+                return -1;
+            }
+            char c = Character.toUpperCase(key.charAt(start));
+            for (int i = 0; i < optionKeys.length; i++) {
+                if (optionKeys[i].charAt(0) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        String normalized = key.substring(start, end).toUpperCase();
+        for (int i = 0; i < optionKeys.length; i++) {
+            if (optionKeys[i].equals(normalized)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -66,19 +208,8 @@ public abstract class Question {
      * @return true if correct, false otherwise
      */
     public boolean isCorrect(String userAnswer) {
-        if (userAnswer == null) {
-            return false;
-        }
-        userAnswer = userAnswer.toUpperCase().trim();
-        
-        // Check if the option key exists
-        if (!options.containsKey(userAnswer)) {
-            return false;
-        }
-        
-        // Compare the option value with the correct answer
-        String selectedAnswer = options.get(userAnswer);
-        return selectedAnswer.equals(correctAnswer);
+        int selected = indexOfOption(userAnswer);
+        return selected >= 0 && selected == correctIndex;
     }
 
 
@@ -86,7 +217,7 @@ public abstract class Question {
     public void displayQuestion() {
         TUI.printColor("\nQuestion: ", TUI.BOLD + TUI.CYAN);
         TUI.printlnColor(question, TUI.WHITE);
-        System.out.println();
+        TUI.println();
     }
 
     public abstract void displayOptions();
@@ -96,13 +227,14 @@ public abstract class Question {
      * @return The user's selected option key
      */
     public String getInput() {
-        Scanner scanner = new Scanner(System.in);
-        try {
-            TUI.printColor("Enter an option from " + getOptions().keySet() + ": ", TUI.YELLOW);
-            return scanner.nextLine().toUpperCase().trim();
-        } finally {
-            // System.in typically doesn't need closing, but this satisfies linter
+        TUI.printColor("Enter an option from " + getOptions().keySet() + ": ", TUI.YELLOW);
+        TUI.flush();
+        String line = InputReader.current().readLine();
+        if (line == null) {
+            line = "";
         }
+        TUI.getRenderer().inputEcho(line);
+        return line.toUpperCase().trim();
     }
 
 
@@ -0,0 +1,203 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-question play statistics: how often each question is answered
+ * correctly, which options players pick, how often they run out of time and
+ * which lifelines they use on it, keyed by {@link Question#getId()}.
+ *
+ * Counting goes to striped {@link LongAdder}s, so sessions recording at the
+ * same time never wait for each other. Totals can be exported as a CSV
+ * snapshot, periodically from a daemon thread if started:
+ * <pre>
+ *   id,difficulty,answers,correct,timeouts,picks,fifty_fifty,phone_a_friend,ask_the_audience,question
+ * </pre>
+ * where picks lists the count per option key, e.g. "A=12;B=3;C=0;D=1".
+ */
+public class QuestionAnalytics {
+
+    public static final String CSV_HEADER =
+            "id,difficulty,answers,correct,timeouts,picks,fifty_fifty,phone_a_friend,ask_the_audience,question";
+
+    /** Lifelines in the order they are counted and exported. */
+    private static final String[] LIFELINES = {Lifelines.FIFTY_FIFTY, Lifelines.PHONE_FRIEND, Lifelines.ASK_AUDIENCE};
+
+    private final Map<Long, Stats> stats = new ConcurrentHashMap<>();
+    private ScheduledExecutorService exporter;
+
+    // Holder class: built lazily and published safely by class initialization
+    private static class SharedAnalytics {
+        static final QuestionAnalytics INSTANCE = new QuestionAnalytics();
+    }
+
+    /**
+     * Get the analytics shared by every game in this JVM.
+     */
+    public static QuestionAnalytics shared() {
+        return SharedAnalytics.INSTANCE;
+    }
+
+    /**
+     * Count an answer.
+     * @param question The question answered
+     * @param answer The option key chosen, or null if the player ran out of time
+     * @param correct Whether the answer was correct
+     */
+    public void recordAnswer(Question question, String answer, boolean correct) {
+        Stats counters = statsFor(question);
+        if (answer == null) {
+            counters.timeouts.increment();
+        } else {
+            int option = question.indexOfOption(answer);
+            if (option >= 0) {
+                counters.picks[option].increment();
+            }
+        }
+        if (correct) {
+            counters.correct.increment();
+        }
+    }
+
+    /**
+     * Count a lifeline used on a question.
+     */
+    public void recordLifeline(Question question, String lifeline) {
+        Stats counters = statsFor(question);
+        for (int i = 0; i < LIFELINES.length; i++) {
+            if (LIFELINES[i].equals(lifeline)) {
+                counters.lifelines[i].increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Times a question was answered correctly, or 0 if it was never played.
+     */
+    public long getCorrectCount(long questionId) {
+        Stats counters = stats.get(questionId);
+        return counters == null ? 0 : counters.correct.sum();
+    }
+
+    /**
+     * Times a question was answered, including running out of time.
+     */
+    public long getAnswerCount(long questionId) {
+        Stats counters = stats.get(questionId);
+        return counters == null ? 0 : counters.answers();
+    }
+
+    /**
+     * Export a snapshot to the given file every period on a daemon thread.
+     */
+    public synchronized void startExport(Path path, long period, TimeUnit unit) {
+        if (exporter == null) {
+            exporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "analytics-export");
+                thread.setDaemon(true);
+                return thread;
+            });
+            exporter.scheduleWithFixedDelay(() -> {
+                try {
+                    export(path);
+                } catch (IOException e) {
+                    System.err.println("Analytics export failed: " + e.getMessage());
+                }
+            }, period, period, unit);
+        }
+    }
+
+    /**
+     * Write the current totals as CSV, through a temporary file so readers
+     * never see half a snapshot. Counts still being added may be missed.
+     */
+    public void export(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            out.write(CSV_HEADER);
+            out.newLine();
+            for (Stats counters : snapshotOrder()) {
+                Question question = counters.question;
+                StringBuilder line = new StringBuilder(128);
+                line.append(Long.toHexString(question.getId())).append(',')
+                        .append(question.getDifficulty()).append(',')
+                        .append(counters.answers()).append(',')
+                        .append(counters.correct.sum()).append(',')
+                        .append(counters.timeouts.sum()).append(',');
+                for (int i = 0; i < counters.picks.length; i++) {
+                    if (i > 0) {
+                        line.append(';');
+                    }
+                    line.append(question.getOptionKey(i)).append('=').append(counters.picks[i].sum());
+                }
+                for (LongAdder lifeline : counters.lifelines) {
+                    line.append(',').append(lifeline.sum());
+                }
+                line.append(',').append(QuestionImporter.quoteCsv(question.getQuestion()));
+                out.write(line.toString());
+                out.newLine();
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<Stats> snapshotOrder() {
+        List<Stats> all = new ArrayList<>(stats.values());
+        all.sort((a, b) -> a.question.getDifficulty() != b.question.getDifficulty()
+                ? Integer.compare(a.question.getDifficulty(), b.question.getDifficulty())
+                : Long.compareUnsigned(a.question.getId(), b.question.getId()));
+        return all;
+    }
+
+    private Stats statsFor(Question question) {
+        long id = question.getId();
+        Stats counters = stats.get(id);
+        if (counters == null) {
+            counters = stats.computeIfAbsent(id, key -> new Stats(question));
+        }
+        return counters;
+    }
+
+    /**
+     * Counters of one question.
+     */
+    private static final class Stats {
+
+        final Question question;
+        final LongAdder[] picks;
+        final LongAdder correct = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder[] lifelines = new LongAdder[LIFELINES.length];
+
+        Stats(Question question) {
+            this.question = question;
+            this.picks = new LongAdder[question.getOptionCount()];
+            for (int i = 0; i < picks.length; i++) {
+                picks[i] = new LongAdder();
+            }
+            for (int i = 0; i < lifelines.length; i++) {
+                lifelines[i] = new LongAdder();
+            }
+        }
+
+        long answers() {
+            long total = timeouts.sum();
+            for (LongAdder pick : picks) {
+                total += pick.sum();
+            }
+            return total;
+        }
+    }
+}
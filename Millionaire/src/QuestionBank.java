@@ -1,18 +1,94 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Manages the question bank for the Millionaire game.
  * Organizes questions by difficulty level and type.
+ *
+ * Once frozen, a bank is read-only and can be shared by any number of
+ * concurrent sessions, each drawing from it through its own {@link QuestionCursor}.
  */
 public class QuestionBank {
     
     private Map<Integer, List<Question>> questionsByDifficulty;
-    private Random random;
+    private QuestionPack pack;
+    private boolean frozen;
     
     public QuestionBank() {
+        this(true);
+    }
+    
+    /**
+     * Create a bank, optionally without the built-in questions.
+     * @param builtInQuestions Whether to add the built-in questions
+     */
+    public QuestionBank(boolean builtInQuestions) {
         this.questionsByDifficulty = new HashMap<>();
-        this.random = new Random();
-        initializeQuestions();
+        if (builtInQuestions) {
+            initializeQuestions();
+        }
+    }
+    
+    /**
+     * Create a bank backed by a compiled question pack.
+     * Questions are decoded from the pack only when they are picked.
+     */
+    public QuestionBank(QuestionPack pack) {
+        this(false);
+        this.pack = pack;
+    }
+    
+    /**
+     * Create a frozen bank holding only the questions of a file.
+     * Files ending in .mqp are mapped as a {@link QuestionPack},
+     * anything else is imported with {@link QuestionImporter}.
+     */
+    public static QuestionBank fromFile(Path path) throws IOException {
+        if (path.getFileName().toString().toLowerCase().endsWith(".mqp")) {
+            return new QuestionBank(QuestionPack.open(path)).freeze();
+        }
+        QuestionBank bank = new QuestionBank(false);
+        QuestionImporter.importFile(bank, path);
+        return bank.freeze();
+    }
+    
+    /**
+     * Get the frozen bank of built-in questions shared by every game in this JVM.
+     * It is built once, on first use.
+     */
+    public static QuestionBank shared() {
+        return SharedBank.INSTANCE;
+    }
+    
+    // Holder class: built lazily and published safely by class initialization
+    private static class SharedBank {
+        static final QuestionBank INSTANCE = new QuestionBank().freeze();
+    }
+    
+    /**
+     * Make the bank read-only so concurrent sessions can share it.
+     * Questions in a frozen bank must not be modified through their setters.
+     * @return This bank
+     */
+    public synchronized QuestionBank freeze() {
+        if (!frozen) {
+            Map<Integer, List<Question>> readOnly = new HashMap<>();
+            for (Map.Entry<Integer, List<Question>> entry : questionsByDifficulty.entrySet()) {
+                readOnly.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            }
+            questionsByDifficulty = Collections.unmodifiableMap(readOnly);
+            frozen = true;
+        }
+        return this;
+    }
+    
+    /**
+     * Check if the bank is read-only.
+     */
+    public synchronized boolean isFrozen() {
+        return frozen;
     }
     
     /**
@@ -28,6 +104,14 @@ public class QuestionBank {
         addHardQuestions();
     }
     
+    /**
+     * Prize stored with a question of a level: the level's prize on the
+     * standard ladder, 0 beyond it. Games pay out from their own ladder.
+     */
+    static int standardPrize(int difficulty) {
+        return (int) PrizeLadder.standard().getPrize(difficulty);
+    }
+    
     /**
      * Add easy questions (levels 1-5).
      */
@@ -40,7 +124,7 @@ public class QuestionBank {
         q1Options.put("D", "Madrid");
         addQuestion(1, new MultipleChoiceQuestion(
             "What is the capital of France?",
-            q1Options, "Paris", 1, PrizeLadder.getPrize(1)
+            q1Options, "Paris", 1, standardPrize(1)
         ));
         
         // Level 2
@@ -51,13 +135,13 @@ public class QuestionBank {
         q2Options.put("D", "Earth");
         addQuestion(2, new MultipleChoiceQuestion(
             "Which planet is known as the Red Planet?",
-            q2Options, "Mars", 2, PrizeLadder.getPrize(2)
+            q2Options, "Mars", 2, standardPrize(2)
         ));
         
         // Level 3 - True/False
         addQuestion(3, new TrueFalseQuestion(
             "The Great Wall of China is visible from space.",
-            "False", 3, PrizeLadder.getPrize(3)
+            "False", 3, standardPrize(3)
         ));
         
         // Level 4
@@ -68,7 +152,7 @@ public class QuestionBank {
         q4Options.put("D", "Joseph Stalin");
         addQuestion(4, new MultipleChoiceQuestion(
             "Who was the Prime Minister of the United Kingdom during most of World War II?",
-            q4Options, "Winston Churchill", 4, PrizeLadder.getPrize(4)
+            q4Options, "Winston Churchill", 4, standardPrize(4)
         ));
         
         // Level 5 - ASCII Art
@@ -84,7 +168,7 @@ public class QuestionBank {
         addQuestion(5, new ASCIIArtQuestion(
             asciiCat,
             "What animal is represented by this ASCII art?",
-            q5Options, "Cat", 5, PrizeLadder.getPrize(5)
+            q5Options, "Cat", 5, standardPrize(5)
         ));
     }
     
@@ -100,13 +184,13 @@ public class QuestionBank {
         q6Options.put("D", "Mark Twain");
         addQuestion(6, new MultipleChoiceQuestion(
             "Who wrote the play 'Romeo and Juliet'?",
-            q6Options, "William Shakespeare", 6, PrizeLadder.getPrize(6)
+            q6Options, "William Shakespeare", 6, standardPrize(6)
         ));
         
         // Level 7 - True/False
         addQuestion(7, new TrueFalseQuestion(
             "The human body has four lungs.",
-            "False", 7, PrizeLadder.getPrize(7)
+            "False", 7, standardPrize(7)
         ));
         
         // Level 8 - ASCII Art
@@ -128,7 +212,7 @@ public class QuestionBank {
         addQuestion(8, new ASCIIArtQuestion(
             asciiHeart,
             "What shape is represented by this ASCII art?",
-            q8Options, "Heart", 8, PrizeLadder.getPrize(8)
+            q8Options, "Heart", 8, standardPrize(8)
         ));
         
         // Level 9
@@ -139,7 +223,7 @@ public class QuestionBank {
         q9Options.put("D", "Matterhorn");
         addQuestion(9, new MultipleChoiceQuestion(
             "What is the highest mountain in the world?",
-            q9Options, "Mount Everest", 9, PrizeLadder.getPrize(9)
+            q9Options, "Mount Everest", 9, standardPrize(9)
         ));
         
         // Level 10
@@ -150,7 +234,7 @@ public class QuestionBank {
         q10Options.put("D", "Egyptians");
         addQuestion(10, new MultipleChoiceQuestion(
             "Who built the Colosseum in Rome?",
-            q10Options, "Romans", 10, PrizeLadder.getPrize(10)
+            q10Options, "Romans", 10, standardPrize(10)
         ));
     }
     
@@ -166,13 +250,13 @@ public class QuestionBank {
         q11Options.put("D", "Dorothy Hodgkin");
         addQuestion(11, new MultipleChoiceQuestion(
             "Who was the first woman to win a Nobel Prize?",
-            q11Options, "Marie Curie", 11, PrizeLadder.getPrize(11)
+            q11Options, "Marie Curie", 11, standardPrize(11)
         ));
         
         // Level 12 - True/False
         addQuestion(12, new TrueFalseQuestion(
             "The speed of light is approximately 299,792,458 meters per second in a vacuum.",
-            "True", 12, PrizeLadder.getPrize(12)
+            "True", 12, standardPrize(12)
         ));
         
         // Level 13 - ASCII Art
@@ -191,7 +275,7 @@ public class QuestionBank {
         addQuestion(13, new ASCIIArtQuestion(
             asciiTree,
             "What object is represented by this ASCII art?",
-            q13Options, "Tree", 13, PrizeLadder.getPrize(13)
+            q13Options, "Tree", 13, standardPrize(13)
         ));
         
         // Level 14
@@ -202,7 +286,7 @@ public class QuestionBank {
         q14Options.put("D", "Copernicus");
         addQuestion(14, new MultipleChoiceQuestion(
             "Who formulated the theory of general relativity?",
-            q14Options, "Einstein", 14, PrizeLadder.getPrize(14)
+            q14Options, "Einstein", 14, standardPrize(14)
         ));
         
         // Level 15 - Final question
@@ -213,7 +297,7 @@ public class QuestionBank {
         q15Options.put("D", "1970");
         addQuestion(15, new MultipleChoiceQuestion(
             "In what year did humans first land on the Moon?",
-            q15Options, "1969", 15, PrizeLadder.getPrize(15)
+            q15Options, "1969", 15, standardPrize(15)
         ));
         
         // Add more questions per level for variety (random selection)
@@ -232,7 +316,7 @@ public class QuestionBank {
         alt1.put("D", "Bangkok");
         addQuestion(1, new MultipleChoiceQuestion(
             "What is the capital of Japan?",
-            alt1, "Tokyo", 1, PrizeLadder.getPrize(1)
+            alt1, "Tokyo", 1, standardPrize(1)
         ));
         
         // Level 5 alternatives
@@ -252,7 +336,7 @@ public class QuestionBank {
         addQuestion(5, new ASCIIArtQuestion(
             asciiStar,
             "What shape is represented by this ASCII art?",
-            alt5, "Star", 5, PrizeLadder.getPrize(5)
+            alt5, "Star", 5, standardPrize(5)
         ));
     }
     
@@ -264,24 +348,104 @@ public class QuestionBank {
         questionsByDifficulty.get(difficulty).add(question);
     }
     
+    /**
+     * Add a batch of questions to a difficulty level.
+     * Safe to call from several importer threads at once.
+     */
+    public synchronized void addQuestions(int difficulty, List<Question> questions) {
+        if (pack != null) {
+            throw new UnsupportedOperationException("Cannot add questions to a question pack");
+        }
+        if (frozen) {
+            throw new IllegalStateException("Cannot add questions to a frozen question bank");
+        }
+        questionsByDifficulty.computeIfAbsent(difficulty, d -> new ArrayList<>()).addAll(questions);
+    }
+    
     /**
      * Get a random question for a given difficulty level.
+     * Draws from the calling thread's generator, so sessions sharing the bank don't contend.
      */
     public Question getQuestion(int difficulty) {
-        List<Question> questions = questionsByDifficulty.get(difficulty);
-        if (questions == null || questions.isEmpty()) {
+        int count = getQuestionCount(difficulty);
+        if (count == 0) {
             throw new RuntimeException("No questions available for difficulty level " + difficulty);
         }
-        int randomIndex = random.nextInt(questions.size());
-        return questions.get(randomIndex);
+        return getQuestion(difficulty, ThreadLocalRandom.current().nextInt(count));
+    }
+    
+    /**
+     * Get a specific question of a difficulty level.
+     * @param difficulty Difficulty level
+     * @param index Position within the level, from 0 to {@link #getQuestionCount} - 1
+     */
+    public Question getQuestion(int difficulty, int index) {
+        long start = System.nanoTime();
+        Question question;
+        if (pack != null) {
+            question = pack.read(difficulty, index);
+        } else {
+            List<Question> questions = questionsByDifficulty.get(difficulty);
+            if (questions == null) {
+                throw new IndexOutOfBoundsException("No question " + index + " at difficulty level " + difficulty);
+            }
+            question = questions.get(index);
+        }
+        GameMetrics.QUESTION_FETCH.recordSince(start);
+        return question;
     }
     
     /**
      * Check if questions are available for a difficulty level.
      */
     public boolean hasQuestions(int difficulty) {
+        if (pack != null) {
+            return pack.getQuestionCount(difficulty) > 0;
+        }
         List<Question> questions = questionsByDifficulty.get(difficulty);
         return questions != null && !questions.isEmpty();
     }
+    
+    /**
+     * Get the number of questions for a difficulty level.
+     */
+    public int getQuestionCount(int difficulty) {
+        if (pack != null) {
+            return pack.getQuestionCount(difficulty);
+        }
+        List<Question> questions = questionsByDifficulty.get(difficulty);
+        return questions == null ? 0 : questions.size();
+    }
+    
+    /**
+     * Get the highest difficulty level holding questions, 0 for an empty bank.
+     */
+    public int getLevelCount() {
+        if (pack != null) {
+            return pack.getLevelCount();
+        }
+        int highest = 0;
+        for (Map.Entry<Integer, List<Question>> level : questionsByDifficulty.entrySet()) {
+            if (!level.getValue().isEmpty()) {
+                highest = Math.max(highest, level.getKey());
+            }
+        }
+        return highest;
+    }
+    
+    /**
+     * Get all questions of a difficulty level, decoding them if the bank is a pack.
+     */
+    public List<Question> getQuestions(int difficulty) {
+        if (pack != null) {
+            List<Question> questions = new ArrayList<>(pack.getQuestionCount(difficulty));
+            for (int i = 0; i < pack.getQuestionCount(difficulty); i++) {
+                questions.add(pack.read(difficulty, i));
+            }
+            return questions;
+        }
+        List<Question> questions = questionsByDifficulty.get(difficulty);
+        return questions == null ? Collections.emptyList() : Collections.unmodifiableList(questions);
+    }
 }
 
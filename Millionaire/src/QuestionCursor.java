@@ -0,0 +1,56 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * A session's view of a shared {@link QuestionBank}.
+ * Holds only per-session state, the random source and the questions already
+ * asked, so thousands of sessions can play from one bank without copying it.
+ * No question repeats within a level until all of that level has been asked.
+ */
+public class QuestionCursor {
+    
+    private QuestionBank bank;
+    private QuestionSampler sampler;
+    
+    public QuestionCursor(QuestionBank bank, RandomGenerator random) {
+        this.bank = bank;
+        this.sampler = new QuestionSampler(random);
+    }
+    
+    /**
+     * Cursor with a reproducible question order.
+     */
+    public QuestionCursor(QuestionBank bank, long seed) {
+        this.bank = bank;
+        this.sampler = new QuestionSampler(seed);
+    }
+    
+    /**
+     * Draw a question for a difficulty level, avoiding ones this session has seen.
+     */
+    public Question next(int difficulty) {
+        return bank.getQuestion(difficulty, nextIndex(difficulty));
+    }
+    
+    /**
+     * Draw a question like {@link #next}, returning its index within the level.
+     */
+    public int nextIndex(int difficulty) {
+        int count = bank.getQuestionCount(difficulty);
+        if (count == 0) {
+            throw new RuntimeException("No questions available for difficulty level " + difficulty);
+        }
+        return sampler.next(difficulty, count);
+    }
+    
+    /**
+     * Forget the questions asked so far. Playing again does not need this;
+     * keeping the history is what stops repeats across games.
+     */
+    public void reset() {
+        sampler.reset();
+    }
+    
+    public QuestionBank getBank() {
+        return bank;
+    }
+}
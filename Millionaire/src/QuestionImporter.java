@@ -0,0 +1,445 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams questions from CSV or JSON-lines files into a {@link QuestionBank}.
+ * Lines are read one at a time and handed to worker threads in small batches
+ * through a bounded queue, so memory stays flat no matter how big the file is.
+ *
+ * CSV columns (one record per line, art line breaks written as \n):
+ *   type,difficulty,question,correct,A,B,C,D,art
+ * JSON lines:
+ *   {"type":"MC","difficulty":1,"question":"...","correct":"Paris","options":{"A":"Paris",...},"art":"..."}
+ * Type is MC (multiple choice), TF (true/false) or ART (ASCII art). The correct
+ * answer is the option text, as in the built-in questions.
+ */
+public class QuestionImporter {
+
+    private static final int BATCH_LINES = 1_024;
+    private static final String[] OPTION_KEYS = {"A", "B", "C", "D"};
+
+    /**
+     * Import a file using all available processors.
+     * Files ending in .csv are read as CSV, anything else as JSON lines.
+     * @return Number of questions added
+     */
+    public static long importFile(QuestionBank bank, Path path) throws IOException {
+        return importFile(bank, path, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Import a file, parsing on the given number of threads.
+     * @return Number of questions added
+     */
+    public static long importFile(QuestionBank bank, Path path, int threads) throws IOException {
+        boolean csv = path.getFileName().toString().toLowerCase().endsWith(".csv");
+        AtomicLong imported = new AtomicLong();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        // Bounded queue + caller-runs keeps the reader from racing ahead of the parsers
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String[] batch = new String[BATCH_LINES];
+            int size = 0;
+            long firstLine = 1;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null && failure.get() == null) {
+                lineNumber++;
+                batch[size++] = line;
+                if (size == BATCH_LINES) {
+                    submit(workers, bank, csv, batch, size, firstLine, imported, failure);
+                    batch = new String[BATCH_LINES];
+                    size = 0;
+                    firstLine = lineNumber + 1;
+                }
+            }
+            if (size > 0) {
+                submit(workers, bank, csv, batch, size, firstLine, imported, failure);
+            }
+        } finally {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new IOException("Failed to import " + path + ": " + failure.get().getMessage(), failure.get());
+        }
+        return imported.get();
+    }
+
+    private static void submit(ThreadPoolExecutor workers, QuestionBank bank, boolean csv, String[] lines, int size,
+                               long firstLine, AtomicLong imported, AtomicReference<RuntimeException> failure) {
+        workers.execute(() -> {
+            Map<Integer, List<Question>> parsed = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                String line = lines[i].trim();
+                if (line.isEmpty() || line.startsWith("#") || (csv && line.startsWith("type,"))) {
+                    continue;
+                }
+                try {
+                    Question question = csv ? parseCsv(line) : parseJson(line);
+                    parsed.computeIfAbsent(question.getDifficulty(), d -> new ArrayList<>()).add(question);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, new IllegalArgumentException(
+                            "line " + (firstLine + i) + ": " + e.getMessage(), e));
+                    return;
+                }
+            }
+            int count = 0;
+            for (Map.Entry<Integer, List<Question>> entry : parsed.entrySet()) {
+                bank.addQuestions(entry.getKey(), entry.getValue());
+                count += entry.getValue().size();
+            }
+            imported.addAndGet(count);
+        });
+    }
+
+    /**
+     * Parse one CSV record.
+     */
+    static Question parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() < 4) {
+            throw new IllegalArgumentException("expected at least 4 columns, found " + fields.size());
+        }
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < OPTION_KEYS.length && 4 + i < fields.size(); i++) {
+            if (!fields.get(4 + i).isEmpty()) {
+                options.put(OPTION_KEYS[i], fields.get(4 + i));
+            }
+        }
+        String art = fields.size() > 8 ? fields.get(8).replace("\\n", "\n") : null;
+        return createQuestion(fields.get(0), parseDifficulty(fields.get(1)), fields.get(2), fields.get(3), options, art);
+    }
+
+    /**
+     * Parse one JSON-lines record.
+     */
+    static Question parseJson(String line) {
+        Map<String, Object> record = new JsonParser(line).parseObject();
+        Object difficulty = record.get("difficulty");
+        Object options = record.get("options");
+        if (difficulty == null) {
+            throw new IllegalArgumentException("missing difficulty");
+        }
+        Map<String, String> optionMap = new LinkedHashMap<>();
+        if (options instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) options).entrySet()) {
+                optionMap.put(entry.getKey().toString().toUpperCase(), String.valueOf(entry.getValue()));
+            }
+        }
+        return createQuestion(string(record, "type"), parseDifficulty(difficulty.toString()),
+                string(record, "question"), string(record, "correct"), optionMap, (String) record.get("art"));
+    }
+
+    /**
+     * Write a question as one JSON-lines record, the inverse of {@link #parseJson}.
+     * @param difficulty Level to write, which may differ from the question's own
+     */
+    static String formatJson(Question question, int difficulty) {
+        StringBuilder json = new StringBuilder(256);
+        String type = question instanceof TrueFalseQuestion ? "TF"
+                : question instanceof ASCIIArtQuestion ? "ART" : "MC";
+        String text = question instanceof ASCIIArtQuestion
+                ? ((ASCIIArtQuestion) question).getQuestionText() : question.getQuestion();
+        json.append("{\"type\":\"").append(type).append("\",\"difficulty\":").append(difficulty);
+        appendJsonField(json, "question", text);
+        appendJsonField(json, "correct", question.getCorrectAnswer());
+        json.append(",\"options\":{");
+        for (int i = 0; i < question.getOptionCount(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendJsonString(json, question.getOptionKey(i)).append(':');
+            appendJsonString(json, question.getOptionText(i));
+        }
+        json.append('}');
+        if (question instanceof ASCIIArtQuestion) {
+            appendJsonField(json, "art", ((ASCIIArtQuestion) question).getAsciiArt());
+        }
+        return json.append('}').toString();
+    }
+
+    private static void appendJsonField(StringBuilder json, String name, String value) {
+        json.append(',');
+        appendJsonString(json, name).append(':');
+        appendJsonString(json, value);
+    }
+
+    private static StringBuilder appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"');
+    }
+
+    private static Question createQuestion(String type, int difficulty, String text, String correct,
+                                           Map<String, String> options, String art) {
+        int prize = QuestionBank.standardPrize(difficulty);
+        switch (type.trim().toUpperCase()) {
+            case "MC":
+                requireOptions(options, correct);
+                return new MultipleChoiceQuestion(text, new HashMap<>(options), correct, difficulty, prize);
+            case "TF":
+                if (!correct.equals("True") && !correct.equals("False")) {
+                    throw new IllegalArgumentException("true/false answer must be True or False: " + correct);
+                }
+                return new TrueFalseQuestion(text, correct, difficulty, prize);
+            case "ART":
+                requireOptions(options, correct);
+                if (art == null || art.isEmpty()) {
+                    throw new IllegalArgumentException("ASCII art question without art");
+                }
+                return new ASCIIArtQuestion(art, text, new HashMap<>(options), correct, difficulty, prize);
+            default:
+                throw new IllegalArgumentException("unknown question type: " + type);
+        }
+    }
+
+    private static void requireOptions(Map<String, String> options, String correct) {
+        if (options.size() < 2) {
+            throw new IllegalArgumentException("a question needs at least 2 options");
+        }
+        if (!options.containsValue(correct)) {
+            throw new IllegalArgumentException("correct answer is not one of the options: " + correct);
+        }
+    }
+
+    private static int parseDifficulty(String value) {
+        int difficulty;
+        try {
+            difficulty = (int) Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid difficulty: " + value);
+        }
+        if (difficulty < 1 || difficulty > PrizeLadder.MAX_LEVELS) {
+            throw new IllegalArgumentException("difficulty out of range: " + difficulty);
+        }
+        return difficulty;
+    }
+
+    private static String string(Map<String, Object> record, String field) {
+        Object value = record.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + field);
+        }
+        return value.toString();
+    }
+
+    /**
+     * Quote a CSV field if it needs it, the inverse of {@link #splitCsv}.
+     */
+    static String quoteCsv(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"").replace("\n", "\\n") + '"';
+    }
+
+    /**
+     * Split a CSV line, honouring double-quoted fields with "" escapes.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(9);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Minimal parser for the flat JSON objects used by the JSON-lines format.
+     * Supports objects, strings, numbers, booleans and null.
+     */
+    private static class JsonParser {
+
+        private final String text;
+        private int pos;
+
+        JsonParser(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> parseObject() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = parseString();
+                skipWhitespace();
+                expect(':');
+                object.put(key, parseValue());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    return object;
+                }
+                if (c != ',') {
+                    throw error("expected ',' or '}'");
+                }
+            }
+        }
+
+        private Object parseValue() {
+            skipWhitespace();
+            char c = peek();
+            if (c == '{') {
+                return parseObject();
+            } else if (c == '"') {
+                return parseString();
+            } else if (text.startsWith("true", pos)) {
+                pos += 4;
+                return Boolean.TRUE;
+            } else if (text.startsWith("false", pos)) {
+                pos += 5;
+                return Boolean.FALSE;
+            } else if (text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            int start = pos;
+            while (pos < text.length() && "+-.eE0123456789".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("unexpected character '" + c + "'");
+            }
+            return Double.parseDouble(text.substring(start, pos));
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("truncated unicode escape");
+                        }
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        sb.append(escaped);
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private void expect(char expected) {
+            skipWhitespace();
+            if (next() != expected) {
+                throw error("expected '" + expected + "'");
+            }
+        }
+
+        private char peek() {
+            if (pos >= text.length()) {
+                throw error("unexpected end of record");
+            }
+            return text.charAt(pos);
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (pos + 1));
+        }
+    }
+}
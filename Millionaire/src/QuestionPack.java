@@ -0,0 +1,293 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compiled, memory-mapped question bank.
+ *
+ * A pack is opened with {@link FileChannel#map} and questions are decoded only
+ * when {@link #read} picks them, so opening costs a few page faults instead of
+ * building every question up front. The mapping is read-only, so several JVMs
+ * opening the same pack share one page-cached copy.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header:  int magic, short version, short levels,
+ *            then per level 1..levels: long indexOffset, int count
+ *   records: byte type, byte difficulty, byte optionCount, byte correctIndex,
+ *            string question, [string art if type is ART],
+ *            optionCount x (byte key, string text)
+ *   indexes: per level, count x long record offset
+ * </pre>
+ * Strings are an int byte length followed by UTF-8 bytes.
+ */
+public class QuestionPack implements AutoCloseable {
+
+    private static final int MAGIC = 0x4D51504B; // "MQPK"
+    private static final short VERSION = 1;
+    private static final int HEADER_FIXED = 8;
+    private static final int HEADER_PER_LEVEL = 12;
+
+    private static final byte TYPE_MULTIPLE_CHOICE = 0;
+    private static final byte TYPE_TRUE_FALSE = 1;
+    private static final byte TYPE_ASCII_ART = 2;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long[] indexOffsets;
+    private final int[] counts;
+
+    private QuestionPack(FileChannel channel, MappedByteBuffer buffer, long[] indexOffsets, int[] counts) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.indexOffsets = indexOffsets;
+        this.counts = counts;
+    }
+
+    /**
+     * Map a pack file. Only the header is read.
+     */
+    public static QuestionPack open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Question pack larger than 2 GB, split it by level: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < HEADER_FIXED || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a question pack: " + path);
+            }
+            if (buffer.getShort(4) != VERSION) {
+                throw new IOException("Unsupported question pack version " + buffer.getShort(4) + ": " + path);
+            }
+            int levels = buffer.getShort(6);
+            long[] indexOffsets = new long[levels + 1];
+            int[] counts = new int[levels + 1];
+            for (int level = 1; level <= levels; level++) {
+                int entry = HEADER_FIXED + (level - 1) * HEADER_PER_LEVEL;
+                indexOffsets[level] = buffer.getLong(entry);
+                counts[level] = buffer.getInt(entry + 8);
+            }
+            return new QuestionPack(channel, buffer, indexOffsets, counts);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Number of difficulty levels in the pack.
+     */
+    public int getLevelCount() {
+        return counts.length - 1;
+    }
+
+    /**
+     * Number of questions at a difficulty level.
+     */
+    public int getQuestionCount(int difficulty) {
+        return difficulty < 1 || difficulty >= counts.length ? 0 : counts[difficulty];
+    }
+
+    /**
+     * Decode one question. Safe to call from several threads.
+     * @param difficulty Difficulty level
+     * @param index Position within the level, from 0 to count - 1
+     */
+    public Question read(int difficulty, int index) {
+        if (index < 0 || index >= getQuestionCount(difficulty)) {
+            throw new IndexOutOfBoundsException("No question " + index + " at difficulty level " + difficulty);
+        }
+        int pos = (int) buffer.getLong((int) indexOffsets[difficulty] + index * 8);
+
+        byte type = buffer.get(pos);
+        int level = buffer.get(pos + 1);
+        int optionCount = buffer.get(pos + 2);
+        int correctIndex = buffer.get(pos + 3);
+        pos += 4;
+
+        String text = readString(pos);
+        pos += 4 + buffer.getInt(pos);
+        String art = null;
+        if (type == TYPE_ASCII_ART) {
+            art = readString(pos);
+            pos += 4 + buffer.getInt(pos);
+        }
+
+        Map<String, String> options = new HashMap<>();
+        String correctAnswer = null;
+        for (int i = 0; i < optionCount; i++) {
+            String key = String.valueOf((char) buffer.get(pos));
+            String value = readString(pos + 1);
+            pos += 5 + buffer.getInt(pos + 1);
+            options.put(key, value);
+            if (i == correctIndex) {
+                correctAnswer = value;
+            }
+        }
+
+        int prize = QuestionBank.standardPrize(level);
+        switch (type) {
+            case TYPE_TRUE_FALSE:
+                return new TrueFalseQuestion(text, correctAnswer, level, prize);
+            case TYPE_ASCII_ART:
+                return new ASCIIArtQuestion(art, text, options, correctAnswer, level, prize);
+            default:
+                return new MultipleChoiceQuestion(text, options, correctAnswer, level, prize);
+        }
+    }
+
+    private String readString(int pos) {
+        byte[] bytes = new byte[buffer.getInt(pos)];
+        buffer.get(pos + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Compile every question of a bank into a pack file.
+     * @return Number of questions written
+     */
+    public static long compile(QuestionBank bank, Path out) throws IOException {
+        int levels = bank.getLevelCount();
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            long position = HEADER_FIXED + (long) levels * HEADER_PER_LEVEL;
+            channel.position(position);
+
+            long[][] recordOffsets = new long[levels + 1][];
+            for (int level = 1; level <= levels; level++) {
+                List<Question> questions = bank.getQuestions(level);
+                recordOffsets[level] = new long[questions.size()];
+                for (int i = 0; i < questions.size(); i++) {
+                    byte[] record = encode(questions.get(i), level);
+                    recordOffsets[level][i] = position;
+                    write(channel, buffer, record);
+                    position += record.length;
+                }
+                written += questions.size();
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_FIXED + levels * HEADER_PER_LEVEL);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) levels);
+            for (int level = 1; level <= levels; level++) {
+                header.putLong(position).putInt(recordOffsets[level].length);
+                for (long offset : recordOffsets[level]) {
+                    if (buffer.remaining() < 8) {
+                        flush(channel, buffer);
+                    }
+                    buffer.putLong(offset);
+                }
+                position += recordOffsets[level].length * 8L;
+            }
+            flush(channel, buffer);
+            if (position > Integer.MAX_VALUE) {
+                throw new IOException("Question pack would exceed 2 GB, split the bank by level");
+            }
+
+            header.flip();
+            channel.write(header, 0);
+        }
+        return written;
+    }
+
+    private static byte[] encode(Question question, int level) {
+        byte type = TYPE_MULTIPLE_CHOICE;
+        String text = question.getQuestion();
+        byte[] art = null;
+        if (question instanceof TrueFalseQuestion) {
+            type = TYPE_TRUE_FALSE;
+        } else if (question instanceof ASCIIArtQuestion) {
+            ASCIIArtQuestion artQuestion = (ASCIIArtQuestion) question;
+            type = TYPE_ASCII_ART;
+            text = artQuestion.getQuestionText();
+            art = artQuestion.getAsciiArt().getBytes(StandardCharsets.UTF_8);
+        }
+
+        // Keys in sorted order so packs are reproducible
+        Map<String, String> options = new TreeMap<>(question.getOptions());
+        byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
+        byte[][] optionBytes = new byte[options.size()][];
+        int size = 4 + 4 + textBytes.length + (art == null ? 0 : 4 + art.length);
+        int correctIndex = -1;
+        int i = 0;
+        for (Map.Entry<String, String> entry : options.entrySet()) {
+            if (entry.getKey().length() != 1) {
+                throw new IllegalArgumentException("Option keys must be single characters: " + entry.getKey());
+            }
+            if (entry.getValue().equals(question.getCorrectAnswer())) {
+                correctIndex = i;
+            }
+            optionBytes[i] = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            size += 1 + 4 + optionBytes[i].length;
+            i++;
+        }
+        if (correctIndex < 0) {
+            throw new IllegalArgumentException("Correct answer is not one of the options: " + question.getQuestion());
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.put(type).put((byte) level).put((byte) options.size()).put((byte) correctIndex);
+        record.putInt(textBytes.length).put(textBytes);
+        if (art != null) {
+            record.putInt(art.length).put(art);
+        }
+        i = 0;
+        for (String key : options.keySet()) {
+            record.put((byte) key.charAt(0)).putInt(optionBytes[i].length).put(optionBytes[i]);
+            i++;
+        }
+        return record.array();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            flush(channel, buffer);
+            if (buffer.capacity() < bytes.length) {
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Compile a CSV or JSON-lines bank into a pack.
+     * Usage: java QuestionPack input.csv|input.jsonl output.mqp
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java QuestionPack <input.csv|input.jsonl> <output.mqp>");
+            System.exit(1);
+        }
+        QuestionBank bank = QuestionBank.fromFile(Path.of(args[0]));
+        long written = compile(bank, Path.of(args[1]));
+        System.out.println("Compiled " + written + " questions into " + args[1]);
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws question indices without replacement, per difficulty level.
+ *
+ * Each level behaves like its own shuffled deck, built lazily with a sparse
+ * Fisher-Yates shuffle: only the positions displaced by a swap are remembered,
+ * so a draw is O(1) and the question lists are never copied, however large a
+ * level is. Once every question of a level has been drawn, that level starts
+ * a fresh shuffle. The same seed gives the same draw order.
+ */
+public class QuestionSampler {
+
+    private static final long EMPTY = -1L;
+
+    private RandomGenerator random;
+    // Number of questions drawn in the current pass, per difficulty
+    private int[] drawn;
+    // Sparse deck: (difficulty << 32 | position) -> question index, open addressing
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public QuestionSampler(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    public QuestionSampler(RandomGenerator random) {
+        this.random = random;
+        this.drawn = new int[PrizeLadder.standard().getTotalLevels() + 1];
+        this.keys = new long[32];
+        this.values = new int[32];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Draw the next question index of a level.
+     * @param difficulty Difficulty level
+     * @param count Number of questions at that level
+     * @return An index from 0 to count - 1 not drawn earlier in this pass
+     */
+    public int next(int difficulty, int count) {
+        if (difficulty >= drawn.length) {
+            drawn = Arrays.copyOf(drawn, difficulty + 1);
+        }
+        int position = drawn[difficulty];
+        if (position >= count) {
+            // Level used up: start a new pass
+            removeLevel(difficulty);
+            position = 0;
+        }
+
+        // Swap a random undrawn slot into this position; only the slot needs remembering
+        int swap = position + random.nextInt(count - position);
+        int chosen = get(difficulty, swap);
+        if (swap != position) {
+            put(difficulty, swap, get(difficulty, position));
+        }
+        drawn[difficulty] = position + 1;
+        return chosen;
+    }
+
+    /**
+     * Forget everything drawn so far.
+     */
+    public void reset() {
+        Arrays.fill(drawn, 0);
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private int get(int difficulty, int position) {
+        long key = key(difficulty, position);
+        for (int slot = slot(key); ; slot = (slot + 1) & (keys.length - 1)) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == EMPTY) {
+                return position; // untouched slots hold their own index
+            }
+        }
+    }
+
+    private void put(int difficulty, int position, int value) {
+        long key = key(difficulty, position);
+        int slot = slot(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                values[slot] = value;
+                rehash(keys.length * 2, -1);
+                return;
+            }
+        }
+        values[slot] = value;
+    }
+
+    private void removeLevel(int difficulty) {
+        rehash(keys.length, difficulty);
+        drawn[difficulty] = 0;
+    }
+
+    /**
+     * Rebuild the table at the given capacity, dropping entries of one level (or none for -1).
+     */
+    private void rehash(int capacity, int dropDifficulty) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && (int) (oldKeys[i] >>> 32) != dropDifficulty) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private static long key(int difficulty, int position) {
+        return ((long) difficulty << 32) | position;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & (keys.length - 1);
+    }
+}
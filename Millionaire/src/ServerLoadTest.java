@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loopback load test for {@link GameServer}.
+ * Starts a server on a free local port and connects the given number of
+ * clients. Each client keeps answering "A" (or pressing enter) with a think
+ * time in between, so most sessions sit idle at any moment, and times how long
+ * the server takes to start answering each line. Prints latency percentiles.
+ *
+ * Usage: java ServerLoadTest [clients] [think ms] [lines per client]
+ */
+public class ServerLoadTest {
+
+    private static final byte[] LINE = "A\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        long thinkMillis = args.length > 1 ? Long.parseLong(args[1]) : 1_000;
+        int linesPerClient = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        TUI.setColorsEnabled(false);
+        GameServer server = new GameServer(QuestionBank.shared());
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Thread acceptor = new Thread(server::serve, "acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        ExecutorService executor = GameServer.newSessionExecutor();
+        List<long[]> latencies = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            long[] samples = new long[linesPerClient];
+            Arrays.fill(samples, -1);
+            latencies.add(samples);
+            executor.execute(() -> {
+                try {
+                    runClient(server.getPort(), thinkMillis, samples);
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        // Report the peak once every client has connected and read its welcome screen
+        while (!done.await(thinkMillis, TimeUnit.MILLISECONDS)) {
+            System.out.printf("Active sessions: %,d%n", server.getActiveSessions());
+        }
+        long elapsed = System.nanoTime() - start;
+        server.close();
+        executor.shutdown();
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).filter(l -> l >= 0).sorted().toArray();
+        System.out.printf("Clients:   %,d (%,d failed) in %.2f s%n", clients, failures.get(), elapsed / 1e9);
+        System.out.printf("Responses: %,d%n", all.length);
+        if (all.length > 0) {
+            System.out.printf("Latency:   p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                    percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6,
+                    percentile(all, 0.999) / 1e6, all[all.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Play one session: wait for the welcome screen, then send lines and time
+     * each first byte of the reply, until the game ends or the samples are full.
+     */
+    private static void runClient(int port, long thinkMillis, long[] samples) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+
+            if (in.read(buffer) < 0) {
+                return;
+            }
+            for (int i = 0; i < samples.length; i++) {
+                think(thinkMillis);
+                // Skip whatever arrived after the first chunk of the previous reply
+                while (in.available() > 0) {
+                    in.read(buffer);
+                }
+                long sent = System.nanoTime();
+                out.write(LINE);
+                out.flush();
+                if (in.read(buffer) < 0) {
+                    return; // game over
+                }
+                samples[i] = System.nanoTime() - sent;
+            }
+        }
+    }
+
+    private static void think(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,458 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of game events, so games in progress survive a restart.
+ *
+ * Every event is one fixed-size record in a memory-mapped file:
+ * <pre>
+ *   int   CRC32C of the remaining 28 bytes
+ *   byte  type (START, QUESTION, LIFELINE, ANSWER, WALK_AWAY, END, STATE)
+ *   byte  level
+ *   short argument (lifeline ordinal, answer correctness, lifeline mask)
+ *   long  session id
+ *   long  prize
+ *   int   question index within its level (or the option kept by a 50/50)
+ *   int   time, seconds since the epoch
+ * </pre>
+ * The file grows in mapped chunks and ends at the first record that is all
+ * zeros or fails its checksum, which also cuts off a record torn by a crash.
+ *
+ * Records are written straight into the mapping. A flusher thread forces them
+ * to disk every few milliseconds, and all sessions that wait for durability
+ * in the meantime share that one force (group commit).
+ *
+ * Opening a journal replays it into the state of every unfinished game, then
+ * compacts the file to one STATE record per such game.
+ */
+public class SessionJournal implements Closeable {
+
+    public static final int RECORD_SIZE = 32;
+    private static final long CHUNK_SIZE = 16L * 1024 * 1024;
+
+    private static final byte START = 1;
+    private static final byte QUESTION = 2;
+    private static final byte LIFELINE = 3;
+    private static final byte ANSWER = 4;
+    private static final byte WALK_AWAY = 5;
+    private static final byte END = 6;
+    private static final byte STATE = 7;
+
+    /** Lifelines by the ordinal stored in records. */
+    private static final String[] LIFELINES = {Lifelines.FIFTY_FIFTY, Lifelines.PHONE_FRIEND, Lifelines.ASK_AUDIENCE};
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> chunks = new CopyOnWriteArrayList<>();
+    private final Map<Long, SessionState> recovered;
+
+    // Appending: one writer at a time, reusing one scratch record
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private volatile long position;
+
+    // Group commit
+    private final long flushIntervalNanos;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushRequested = flushLock.newCondition();
+    private final Condition flushed = flushLock.newCondition();
+    private long durablePosition;
+    private boolean flushWanted;
+    private boolean closed;
+    private final Thread flusher;
+
+    private SessionJournal(FileChannel channel, long position, Map<Long, SessionState> recovered,
+                           long flushIntervalMillis) {
+        this.channel = channel;
+        this.position = position;
+        this.durablePosition = position;
+        this.recovered = recovered;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Open a journal, replaying and compacting whatever it already holds.
+     * @param path Journal file, created if missing
+     * @param flushIntervalMillis Longest time between forces to disk
+     */
+    public static SessionJournal open(Path path, long flushIntervalMillis) throws IOException {
+        Map<Long, SessionState> states = Files.exists(path) ? replay(path) : new HashMap<>();
+
+        // Rewrite the live games into a fresh file, then swap it in
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(compacted);
+        try (SessionJournal writer = openForAppend(compacted, new HashMap<>(), flushIntervalMillis)) {
+            for (SessionState state : states.values()) {
+                writer.append(STATE, state.sessionId, state.level,
+                        state.lifelinesUsed | (state.fiftyFiftyKept + 1) << 3, state.prize, state.questionIndex);
+            }
+            writer.force(writer.position);
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return openForAppend(path, new ConcurrentHashMap<>(states), flushIntervalMillis);
+    }
+
+    private static SessionJournal openForAppend(Path path, Map<Long, SessionState> recovered,
+                                                long flushIntervalMillis) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new SessionJournal(channel, findEnd(channel), recovered, flushIntervalMillis);
+    }
+
+    /**
+     * Games that were in progress when the journal was last written, by session id.
+     * Take a game out of this map when it is resumed.
+     */
+    public Map<Long, SessionState> getRecoveredSessions() {
+        return recovered;
+    }
+
+    public void sessionStarted(long sessionId) {
+        append(START, sessionId, 1, 0, 0, 0);
+    }
+
+    public void questionShown(long sessionId, int level, int questionIndex) {
+        append(QUESTION, sessionId, level, 0, 0, questionIndex);
+    }
+
+    /**
+     * @param fiftyFiftyKept For a 50/50, the ordinal of the wrong option it kept
+     */
+    public void lifelineUsed(long sessionId, int level, String lifeline, int fiftyFiftyKept) {
+        append(LIFELINE, sessionId, level, lifelineOrdinal(lifeline), 0, fiftyFiftyKept);
+    }
+
+    /**
+     * @return Position to pass to {@link #awaitDurable} before showing the outcome
+     */
+    public long answered(long sessionId, int level, boolean correct, long prize) {
+        return append(ANSWER, sessionId, level, correct ? 1 : 0, prize, 0);
+    }
+
+    public long walkedAway(long sessionId, int level, long prize) {
+        return append(WALK_AWAY, sessionId, level, 0, prize, 0);
+    }
+
+    public long gameEnded(long sessionId, int level, long prize) {
+        return append(END, sessionId, level, 0, prize, 0);
+    }
+
+    /**
+     * Wait until everything up to the given position is on disk.
+     * Sessions waiting at the same time are flushed together.
+     */
+    public void awaitDurable(long upTo) {
+        flushLock.lock();
+        try {
+            if (durablePosition < upTo) {
+                flushWanted = true;
+                flushRequested.signal();
+            }
+            while (durablePosition < upTo && !closed) {
+                flushed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushLock.lock();
+        try {
+            closed = true;
+            flushRequested.signal();
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        force(position);
+        channel.close();
+    }
+
+    /**
+     * Write one record at the end of the journal.
+     * @return The position just after it
+     */
+    private long append(byte type, long sessionId, int level, int argument, long prize, int index) {
+        appendLock.lock();
+        try {
+            long at = position;
+            int chunk = (int) (at / CHUNK_SIZE);
+            while (chunks.size() <= chunk) {
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, chunks.size() * CHUNK_SIZE, CHUNK_SIZE));
+            }
+
+            scratch.clear();
+            scratch.putInt(0)
+                    .put(type)
+                    .put((byte) level)
+                    .putShort((short) argument)
+                    .putLong(sessionId)
+                    .putLong(prize)
+                    .putInt(index)
+                    .putInt((int) (System.currentTimeMillis() / 1000));
+            crc.reset();
+            crc.update(scratch.array(), 4, RECORD_SIZE - 4);
+            scratch.putInt(0, (int) crc.getValue());
+
+            chunks.get(chunk).put((int) (at % CHUNK_SIZE), scratch, 0, RECORD_SIZE);
+            position = at + RECORD_SIZE;
+            return position;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            flushLock.lock();
+            try {
+                if (!closed && !flushWanted) {
+                    flushRequested.awaitNanos(flushIntervalNanos);
+                }
+                flushWanted = false;
+                if (closed) {
+                    flushed.signalAll();
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                flushLock.unlock();
+            }
+
+            // Force outside the lock, so sessions keep appending meanwhile
+            long target = position;
+            if (target > durablePosition) {
+                force(target);
+            }
+        }
+    }
+
+    /**
+     * Force the records up to the given position and wake whoever waits for them.
+     */
+    private void force(long target) {
+        long from;
+        flushLock.lock();
+        try {
+            from = durablePosition;
+        } finally {
+            flushLock.unlock();
+        }
+        for (long at = from - from % CHUNK_SIZE; at < target; at += CHUNK_SIZE) {
+            int chunk = (int) (at / CHUNK_SIZE);
+            int start = (int) (Math.max(at, from) - at);
+            int end = (int) (Math.min(at + CHUNK_SIZE, target) - at);
+            if (end > start) {
+                chunks.get(chunk).force(start, end - start);
+            }
+        }
+        flushLock.lock();
+        try {
+            durablePosition = Math.max(durablePosition, target);
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Position after the last intact record.
+     */
+    private static long findEnd(FileChannel channel) throws IOException {
+        long[] end = new long[1];
+        scan(channel, (record, at) -> end[0] = at + RECORD_SIZE);
+        return end[0];
+    }
+
+    /**
+     * Rebuild the state of every unfinished game from a journal file.
+     */
+    static Map<Long, SessionState> replay(Path path) throws IOException {
+        Map<Long, SessionState> states = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            scan(channel, (record, at) -> apply(states, record));
+        }
+        return states;
+    }
+
+    private static void apply(Map<Long, SessionState> states, ByteBuffer record) {
+        byte type = record.get(4);
+        int level = record.get(5);
+        int argument = record.getShort(6);
+        long sessionId = record.getLong(8);
+        long prize = record.getLong(16);
+        int index = record.getInt(24);
+
+        switch (type) {
+            case START:
+                states.put(sessionId, new SessionState(sessionId));
+                break;
+            case STATE: {
+                SessionState state = new SessionState(sessionId);
+                state.level = level;
+                state.prize = prize;
+                state.lifelinesUsed = argument & 0b111;
+                state.fiftyFiftyKept = (argument >> 3) - 1;
+                state.questionIndex = index;
+                states.put(sessionId, state);
+                break;
+            }
+            case QUESTION: {
+                SessionState state = states.get(sessionId);
+                if (state != null) {
+                    state.level = level;
+                    state.questionIndex = index;
+                    state.fiftyFiftyKept = -1;
+                }
+                break;
+            }
+            case LIFELINE: {
+                SessionState state = states.get(sessionId);
+                if (state != null) {
+                    state.lifelinesUsed |= 1 << argument;
+                    if (LIFELINES[argument].equals(Lifelines.FIFTY_FIFTY)) {
+                        state.fiftyFiftyKept = index;
+                    }
+                }
+                break;
+            }
+            case ANSWER: {
+                SessionState state = states.get(sessionId);
+                if (state != null && argument == 1) {
+                    state.level = level + 1;
+                    state.prize = prize;
+                    state.questionIndex = -1;
+                    state.fiftyFiftyKept = -1;
+                } else {
+                    states.remove(sessionId);
+                }
+                break;
+            }
+            case WALK_AWAY:
+            case END:
+                states.remove(sessionId);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(ByteBuffer record, long position);
+    }
+
+    /**
+     * Visit the intact records of a journal in order.
+     */
+    private static void scan(FileChannel channel, RecordVisitor visitor) throws IOException {
+        long size = channel.size();
+        CRC32C crc = new CRC32C();
+        byte[] bytes = new byte[RECORD_SIZE];
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        for (long chunkStart = 0; chunkStart < size; chunkStart += CHUNK_SIZE) {
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart,
+                    Math.min(CHUNK_SIZE, size - chunkStart));
+            for (int offset = 0; offset + RECORD_SIZE <= chunk.limit(); offset += RECORD_SIZE) {
+                chunk.get(offset, bytes);
+                crc.reset();
+                crc.update(bytes, 4, RECORD_SIZE - 4);
+                if (bytes[4] == 0 || record.getInt(0) != (int) crc.getValue()) {
+                    return; // unused space or a torn record
+                }
+                visitor.visit(record, chunkStart + offset);
+            }
+        }
+    }
+
+    private static int lifelineOrdinal(String lifeline) {
+        for (int i = 0; i < LIFELINES.length; i++) {
+            if (LIFELINES[i].equals(lifeline)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown lifeline: " + lifeline);
+    }
+
+    /**
+     * Where an unfinished game stood, as rebuilt from the journal.
+     */
+    public static final class SessionState {
+
+        private final long sessionId;
+        private int level = 1;
+        private long prize;
+        private int lifelinesUsed;
+        // Unanswered question on screen, or -1 if the next one was not drawn yet
+        private int questionIndex = -1;
+        private int fiftyFiftyKept = -1;
+
+        private SessionState(long sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        public long getSessionId() {
+            return sessionId;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public long getPrize() {
+            return prize;
+        }
+
+        public boolean isLifelineUsed(String lifeline) {
+            return (lifelinesUsed & 1 << lifelineOrdinal(lifeline)) != 0;
+        }
+
+        /**
+         * Index within its level of the question that was on screen, or -1.
+         */
+        public int getQuestionIndex() {
+            return questionIndex;
+        }
+
+        /**
+         * Ordinal of the wrong option a 50/50 kept on that question, or -1.
+         */
+        public int getFiftyFiftyKept() {
+            return fiftyFiftyKept;
+        }
+    }
+}
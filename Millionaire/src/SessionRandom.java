@@ -0,0 +1,73 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The random sources of one game session, all grown from a single seed.
+ *
+ * Question selection, each lifeline and a simulated player get a stream of
+ * their own, split off a {@link SplittableRandom} seeded with the session
+ * seed. The streams are
+ * plain fields with no atomic updates and belong to one session, so
+ * sessions never contend on a shared generator. Each stream only depends on
+ * the seed, not on how much another stream was used, so one game played
+ * with different lifelines still gets the same questions. The same seed
+ * always gives the same streams, which is what recordings replay from.
+ */
+public final class SessionRandom {
+
+    private final long seed;
+    private final SplittableRandom questions;
+    private final SplittableRandom fiftyFifty;
+    private final SplittableRandom phoneAFriend;
+    private final SplittableRandom askTheAudience;
+    private final SplittableRandom player;
+
+    public SessionRandom(long seed) {
+        this.seed = seed;
+        SplittableRandom root = new SplittableRandom(seed);
+        this.questions = root.split();
+        this.fiftyFifty = root.split();
+        this.phoneAFriend = root.split();
+        this.askTheAudience = root.split();
+        // Split last, so adding it left the streams of recorded games as they were
+        this.player = root.split();
+    }
+
+    /**
+     * Random sources for a new session, from a seed drawn at random.
+     */
+    public static SessionRandom newSession() {
+        return new SessionRandom(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * The seed that recreates these sources.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public RandomGenerator questions() {
+        return questions;
+    }
+
+    public RandomGenerator fiftyFifty() {
+        return fiftyFifty;
+    }
+
+    public RandomGenerator phoneAFriend() {
+        return phoneAFriend;
+    }
+
+    public RandomGenerator askTheAudience() {
+        return askTheAudience;
+    }
+
+    /**
+     * Stream of the {@link Player} playing the session, for simulations.
+     */
+    public RandomGenerator player() {
+        return player;
+    }
+}
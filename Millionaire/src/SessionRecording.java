@@ -0,0 +1,413 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Everything needed to play a game again exactly as it went: the seed of
+ * its random sources ({@link SessionRandom}), its prize ladder, and every line the player entered
+ * (or the question time running out), each with its time. The questions
+ * shown and the outcome are kept as well, so a replay can tell where it
+ * went a different way. See {@link SessionReplay}.
+ *
+ * A recording is a small binary file:
+ * <pre>
+ *   int    magic "MREC"
+ *   byte   version
+ *   long   session seed
+ *   long   start time, millis since the epoch
+ *   UTF    prize ladder, see {@link PrizeLadder#toString()}
+ *   varint question time limit, millis (0 for untimed play)
+ *   records, each a tag byte:
+ *     LINE      varint millis since the previous record, varint length, UTF-8 bytes
+ *     TIME_UP   varint millis since the previous record
+ *     QUESTION  long question ID
+ *     END       byte won/walked away flags, varint level reached, varlong prize
+ * </pre>
+ * Games resumed from a {@link SessionJournal} are not recorded, since their
+ * start is gone. Recordings are written to their files by a background
+ * thread, so finishing a game never waits for the disk; writes still queued
+ * when the JVM exits are finished by a shutdown hook.
+ */
+public final class SessionRecording {
+
+    private static final int MAGIC = 0x4D524543; // "MREC"
+    private static final byte VERSION = 2;
+
+    private static final byte LINE = 'L';
+    private static final byte TIME_UP = 'T';
+    private static final byte QUESTION = 'Q';
+    private static final byte END = 'E';
+
+    private static final String STANDARD_LADDER = PrizeLadder.standard().toString();
+
+    private static final int WON = 1;
+    private static final int WALKED_AWAY = 2;
+
+    private final long seed;
+    private final long startMillis;
+    private final PrizeLadder ladder;
+    private final long questionTimeLimitMillis;
+    private final List<Event> events;
+    private final long[] questionIds;
+    private final Outcome outcome;
+
+    private SessionRecording(long seed, long startMillis, PrizeLadder ladder, long questionTimeLimitMillis,
+                             List<Event> events, long[] questionIds, Outcome outcome) {
+        this.seed = seed;
+        this.startMillis = startMillis;
+        this.ladder = ladder;
+        this.questionTimeLimitMillis = questionTimeLimitMillis;
+        this.events = events;
+        this.questionIds = questionIds;
+        this.outcome = outcome;
+    }
+
+    /**
+     * Directory named by the millionaire.recordings property, or null when
+     * games are not to be recorded (the default).
+     */
+    public static Path configuredDirectory() {
+        String directory = System.getProperty("millionaire.recordings", "");
+        return directory.isEmpty() ? null : Path.of(directory);
+    }
+
+    /**
+     * Wait until every recording saved so far is in its file.
+     */
+    public static void awaitSaved() {
+        try {
+            Writer.EXECUTOR.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e); // an empty task can't fail
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static SessionRecording read(Path path) throws IOException {
+        return read(Files.readAllBytes(path));
+    }
+
+    public static SessionRecording read(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a session recording");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        long seed = in.readLong();
+        long startMillis = in.readLong();
+        String spec = in.readUTF();
+        // Most games play the standard ladder; don't build a copy of it for each
+        PrizeLadder ladder = spec.equals(STANDARD_LADDER) ? PrizeLadder.standard() : PrizeLadder.parse(spec);
+        long questionTimeLimitMillis = readVarLong(in);
+
+        List<Event> events = new ArrayList<>();
+        List<Long> questionIds = new ArrayList<>();
+        Outcome outcome = null;
+        long at = 0;
+        int tag;
+        while ((tag = in.read()) >= 0) {
+            switch (tag) {
+                case LINE:
+                    at += readVarLong(in);
+                    byte[] line = new byte[(int) readVarLong(in)];
+                    in.readFully(line);
+                    events.add(new Event(at, new String(line, StandardCharsets.UTF_8)));
+                    break;
+                case TIME_UP:
+                    at += readVarLong(in);
+                    events.add(new Event(at, null));
+                    break;
+                case QUESTION:
+                    questionIds.add(in.readLong());
+                    break;
+                case END:
+                    int flags = in.readByte();
+                    int level = (int) readVarLong(in);
+                    long prize = readVarLong(in);
+                    outcome = new Outcome(level, prize, (flags & WON) != 0, (flags & WALKED_AWAY) != 0);
+                    break;
+                default:
+                    throw new IOException("Corrupt recording: unknown record " + tag);
+            }
+        }
+        return new SessionRecording(seed, startMillis, ladder, questionTimeLimitMillis, Collections.unmodifiableList(events),
+                questionIds.stream().mapToLong(Long::longValue).toArray(), outcome);
+    }
+
+    /**
+     * Seed of the game's {@link SessionRandom}.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public PrizeLadder getLadder() {
+        return ladder;
+    }
+
+    public long getQuestionTimeLimitMillis() {
+        return questionTimeLimitMillis;
+    }
+
+    /**
+     * Lines entered and time-ups, in order.
+     */
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * IDs of the questions shown, in order.
+     */
+    public long[] getQuestionIds() {
+        return questionIds.clone();
+    }
+
+    /**
+     * How the game ended, or null if the player left before the end.
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * A line the player entered, or the question time running out.
+     */
+    public static final class Event {
+
+        private final long atMillis;
+        private final String line;
+
+        Event(long atMillis, String line) {
+            this.atMillis = atMillis;
+            this.line = line;
+        }
+
+        /**
+         * Time since the game started.
+         */
+        public long getAtMillis() {
+            return atMillis;
+        }
+
+        /**
+         * The line entered, or null if this is a time-up.
+         */
+        public String getLine() {
+            return line;
+        }
+
+        public boolean isTimeUp() {
+            return line == null;
+        }
+    }
+
+    /**
+     * Result of a game, as compared by replays.
+     */
+    public static final class Outcome {
+
+        private final int levelReached;
+        private final long prize;
+        private final boolean won;
+        private final boolean walkedAway;
+
+        public Outcome(int levelReached, long prize, boolean won, boolean walkedAway) {
+            this.levelReached = levelReached;
+            this.prize = prize;
+            this.won = won;
+            this.walkedAway = walkedAway;
+        }
+
+        public int getLevelReached() {
+            return levelReached;
+        }
+
+        public long getPrize() {
+            return prize;
+        }
+
+        public boolean isWon() {
+            return won;
+        }
+
+        public boolean isWalkedAway() {
+            return walkedAway;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Outcome)) {
+                return false;
+            }
+            Outcome that = (Outcome) other;
+            return levelReached == that.levelReached && prize == that.prize
+                    && won == that.won && walkedAway == that.walkedAway;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * levelReached + Long.hashCode(prize)) * 4 + (won ? 2 : 0) + (walkedAway ? 1 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return (won ? "won" : walkedAway ? "walked away" : "lost") + " at level " + levelReached
+                    + " with " + TUI.formatPrize(prize);
+        }
+    }
+
+    /**
+     * Writes a recording as the game goes, into memory; {@link #save} puts
+     * it in its file. Used by one game at a time, like the game itself.
+     */
+    static final class Recorder {
+
+        // Null to keep the recording in memory only
+        private final Path file;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final long startNanos = System.nanoTime();
+        private long lastMillis;
+        private boolean saved;
+
+        Recorder(Path file, long seed, PrizeLadder ladder, long questionTimeLimitMillis) {
+            this.file = file;
+            try {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeLong(seed);
+                out.writeLong(System.currentTimeMillis());
+                out.writeUTF(ladder.toString());
+                writeVarLong(out, questionTimeLimitMillis);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // in memory, can't happen
+            }
+        }
+
+        /**
+         * Record a line entered, or a time-up if the line is null.
+         */
+        void input(String line) {
+            long now = (System.nanoTime() - startNanos) / 1_000_000;
+            try {
+                out.writeByte(line == null ? TIME_UP : LINE);
+                writeVarLong(out, now - lastMillis);
+                if (line != null) {
+                    byte[] encoded = line.getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(out, encoded.length);
+                    out.write(encoded);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            lastMillis = now;
+        }
+
+        void questionShown(long questionId) {
+            try {
+                out.writeByte(QUESTION);
+                out.writeLong(questionId);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void end(Outcome outcome) {
+            try {
+                out.writeByte(END);
+                out.writeByte((outcome.won ? WON : 0) | (outcome.walkedAway ? WALKED_AWAY : 0));
+                writeVarLong(out, outcome.levelReached);
+                writeVarLong(out, outcome.prize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Queue the recording to be written to its file, once; recorders without
+         * a file keep it in memory. Failures are reported, not thrown, so they
+         * never end the game.
+         */
+        void save() {
+            if (saved || file == null) {
+                return;
+            }
+            saved = true;
+            byte[] recording = bytes.toByteArray();
+            Writer.EXECUTOR.execute(() -> {
+                try {
+                    Files.createDirectories(file.toAbsolutePath().getParent());
+                    Files.write(file, recording);
+                } catch (IOException e) {
+                    System.err.println("Could not save recording " + file + ": " + e.getMessage());
+                }
+            });
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * The thread writing recordings, started on the first save.
+     */
+    private static final class Writer {
+
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recording-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(SessionRecording::awaitSaved));
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated recording");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt recording: varint too long");
+    }
+}
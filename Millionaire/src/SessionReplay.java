@@ -0,0 +1,291 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Plays {@link SessionRecording}s back through {@link Game}, headless and
+ * as fast as the game goes, and checks each one shows the same questions
+ * and ends the same way as when it was recorded. Replays don't count in
+ * the question analytics and don't wait for timers: recorded time-ups are
+ * applied where they happened.
+ *
+ * Replaying a whole directory of recordings on all cores, with fork-join
+ * like {@link Simulator}, doubles as a regression test of game logic
+ * changes and a throughput test of the game itself.
+ *
+ * Usage:
+ * <pre>
+ *   java SessionReplay [-threads N] [-bank question file] recording or directory ...
+ *   java SessionReplay -generate N directory
+ * </pre>
+ * -generate records N games with random input, for a replay corpus.
+ * Recordings must be replayed against the question bank they were made with.
+ */
+public class SessionReplay {
+
+    /** Recordings replayed by one leaf task before it stops splitting. */
+    private static final int LEAF_RECORDINGS = 64;
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        QuestionBank bank = QuestionBank.shared();
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-bank":
+                    bank = QuestionBank.fromFile(Path.of(args[++i]));
+                    break;
+                case "-generate":
+                    int games = Integer.parseInt(args[++i]);
+                    Path directory = Path.of(args[++i]);
+                    long start = System.nanoTime();
+                    generate(games, bank, directory, new Random());
+                    System.out.printf("Recorded %,d games into %s in %.2f s%n", games, directory,
+                            (System.nanoTime() - start) / 1e9);
+                    return;
+                default:
+                    paths.add(Path.of(args[i]));
+                    break;
+            }
+        }
+
+        List<SessionRecording> recordings = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    listing.filter(file -> file.toString().endsWith(".rec")).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        for (Path file : files) {
+            recordings.add(SessionRecording.read(file));
+        }
+
+        Summary summary = replayAll(recordings, bank, threads);
+        for (int i = 0; i < summary.mismatches.size() && i < 20; i++) {
+            int index = summary.mismatchIndexes.get(i);
+            System.out.println(files.get(index) + ": " + summary.mismatches.get(i));
+        }
+        summary.print(threads);
+        if (!summary.mismatches.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Replay one recording.
+     * @return null if it played out as recorded, otherwise what differed
+     */
+    public static String replay(SessionRecording recording, QuestionBank bank) {
+        Game game = new Game(bank, null, recording.getLadder(), recording.getSeed());
+        game.setAnalytics(null);
+        game.setHeadless(true);
+        game.setQuestionTimeLimit(0, TimeUnit.MILLISECONDS);
+        SessionRecording.Recorder replayed = new SessionRecording.Recorder(null, recording.getSeed(),
+                recording.getLadder(), 0);
+        game.record(replayed);
+
+        game.open();
+        for (SessionRecording.Event event : recording.getEvents()) {
+            if (game.isFinished()) {
+                break; // only a leaderboard name can follow
+            }
+            if (event.isTimeUp()) {
+                game.timeUpNow();
+            } else {
+                game.onInput(event.getLine());
+            }
+        }
+        game.close();
+
+        SessionRecording result;
+        try {
+            result = SessionRecording.read(replayed.toByteArray());
+        } catch (IOException e) {
+            return "replay could not be read back: " + e.getMessage();
+        }
+        long[] expected = recording.getQuestionIds();
+        long[] actual = result.getQuestionIds();
+        for (int i = 0; i < Math.min(expected.length, actual.length); i++) {
+            if (expected[i] != actual[i]) {
+                return String.format("question %d was %016x, replay shows %016x", i + 1, expected[i], actual[i]);
+            }
+        }
+        if (expected.length != actual.length) {
+            return expected.length + " questions recorded, " + actual.length + " replayed";
+        }
+        if (!Objects.equals(recording.getOutcome(), result.getOutcome())) {
+            return "recorded " + recording.getOutcome() + ", replay " + result.getOutcome();
+        }
+        return null;
+    }
+
+    /**
+     * Replay recordings on the given number of threads.
+     */
+    public static Summary replayAll(List<SessionRecording> recordings, QuestionBank bank, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            Summary summary = pool.invoke(new ReplayTask(recordings, 0, recordings.size(), bank));
+            summary.elapsedNanos = System.nanoTime() - start;
+            return summary;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Record games played with random input into the given directory.
+     * Returns once every recording is in its file.
+     */
+    public static void generate(int games, QuestionBank bank, Path directory, Random random) throws IOException {
+        Files.createDirectories(directory);
+        String[] answers = {"A", "B", "C", "D"};
+        for (int i = 0; i < games; i++) {
+            Game game = new Game(bank, null, PrizeLadder.configured(), random.nextLong());
+            game.setAnalytics(null);
+            game.setHeadless(true);
+            game.setQuestionTimeLimit(0, TimeUnit.MILLISECONDS);
+            game.record(directory);
+            game.open();
+            while (!game.isFinished()) {
+                int roll = random.nextInt(100);
+                switch (game.getState()) {
+                    case QUESTION:
+                        if (roll < 3) {
+                            game.onInput("WALK");
+                        } else if (roll < 6) {
+                            game.timeUpNow();
+                        } else if (roll < 16) {
+                            game.onInput("LIFELINE");
+                        } else if (roll < 18) {
+                            game.onInput("?");
+                        } else {
+                            game.onInput(answers[random.nextInt(answers.length)]);
+                        }
+                        break;
+                    case LIFELINE_MENU:
+                        game.onInput(String.valueOf(1 + random.nextInt(3)));
+                        break;
+                    default:
+                        game.onInput("");
+                        break;
+                }
+            }
+            game.close();
+        }
+        SessionRecording.awaitSaved();
+    }
+
+    /**
+     * Replays a range of recordings, splitting it in half until it is small enough.
+     */
+    private static class ReplayTask extends RecursiveTask<Summary> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<SessionRecording> recordings;
+        private final int from;
+        private final int to;
+        private final QuestionBank bank;
+
+        ReplayTask(List<SessionRecording> recordings, int from, int to, QuestionBank bank) {
+            this.recordings = recordings;
+            this.from = from;
+            this.to = to;
+            this.bank = bank;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (to - from > LEAF_RECORDINGS) {
+                int mid = (from + to) >>> 1;
+                ReplayTask left = new ReplayTask(recordings, from, mid, bank);
+                left.fork();
+                Summary right = new ReplayTask(recordings, mid, to, bank).compute();
+                return left.join().merge(right);
+            }
+
+            Summary summary = new Summary();
+            for (int i = from; i < to; i++) {
+                SessionRecording recording = recordings.get(i);
+                String mismatch;
+                try {
+                    mismatch = replay(recording, bank);
+                } catch (RuntimeException e) {
+                    mismatch = "replay failed: " + e;
+                }
+                summary.sessions++;
+                summary.inputs += recording.getEvents().size();
+                if (mismatch != null) {
+                    summary.mismatchIndexes.add(i);
+                    summary.mismatches.add(mismatch);
+                }
+            }
+            return summary;
+        }
+    }
+
+    /**
+     * Totals of a batch of replays.
+     */
+    public static class Summary {
+
+        private long sessions;
+        private long inputs;
+        private long elapsedNanos;
+        // In recording order
+        private final List<Integer> mismatchIndexes = new ArrayList<>();
+        private final List<String> mismatches = new ArrayList<>();
+
+        Summary merge(Summary other) {
+            sessions += other.sessions;
+            inputs += other.inputs;
+            mismatchIndexes.addAll(other.mismatchIndexes);
+            mismatches.addAll(other.mismatches);
+            return this;
+        }
+
+        public long getSessions() {
+            return sessions;
+        }
+
+        public long getInputs() {
+            return inputs;
+        }
+
+        public int getMismatchCount() {
+            return mismatches.size();
+        }
+
+        /**
+         * What differed, for every recording that did not replay as recorded.
+         */
+        public List<String> getMismatches() {
+            return mismatches;
+        }
+
+        public void print(int threads) {
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("Replayed %,d sessions (%,d inputs) on %d threads in %.2f s%n",
+                    sessions, inputs, threads, seconds);
+            System.out.printf("Throughput: %,.0f sessions/s, %,.0f inputs/s%n", sessions / seconds, inputs / seconds);
+            System.out.printf("Mismatches: %,d%n", mismatches.size());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * A simple contestant model for simulations.
+ * Knows the answer with a probability that falls with the level, spends at most
+ * one lifeline per question when unsure, and walks away when a blind guess
+ * would risk more than it can win.
+ */
+public class SimulatedPlayer implements Player {
+
+    private RandomGenerator random;
+    private double baseKnowledge;
+    private double knowledgeDropPerLevel;
+
+    private boolean knowsAnswer;
+    private boolean usedLifelineThisQuestion;
+    private String hint;
+
+    public SimulatedPlayer(RandomGenerator random) {
+        this(random, 0.97, 0.05);
+    }
+
+    /**
+     * @param random Source of randomness for this player
+     * @param baseKnowledge Chance of knowing the level 1 answer
+     * @param knowledgeDropPerLevel How much that chance drops per level
+     */
+    public SimulatedPlayer(RandomGenerator random, double baseKnowledge, double knowledgeDropPerLevel) {
+        this.random = random;
+        this.baseKnowledge = baseKnowledge;
+        this.knowledgeDropPerLevel = knowledgeDropPerLevel;
+    }
+
+    @Override
+    public void onQuestion(int level, Question question) {
+        double knowledge = Math.max(0.25, baseKnowledge - knowledgeDropPerLevel * (level - 1));
+        knowsAnswer = random.nextDouble() < knowledge;
+        usedLifelineThisQuestion = false;
+        hint = null;
+    }
+
+    @Override
+    public Move nextMove(GameEngine game) {
+        if (knowsAnswer) {
+            return Move.answer(game.getCurrentQuestion().getCorrectKey());
+        }
+        if (hint != null) {
+            return Move.answer(hint);
+        }
+        Lifelines lifelines = game.getLifelines();
+        if (!usedLifelineThisQuestion && lifelines.hasAnyLifelines()) {
+            usedLifelineThisQuestion = true;
+            return Move.lifeline(lifelines.getAvailableLifelines().get(0));
+        }
+
+        // Blind guess: walk away if losing would cost more than the banked prize
+        int level = game.getCurrentLevel();
+        PrizeLadder ladder = game.getLadder();
+        long banked = ladder.getPrize(level - 1);
+        long guaranteed = ladder.getHighestCheckpointPrize(level);
+        Map<String, String> options = game.getCurrentOptions();
+        if (options.size() > 2 && banked > guaranteed * 2) {
+            return Move.walkAway();
+        }
+        List<String> keys = new ArrayList<>(options.keySet());
+        return Move.answer(keys.get(random.nextInt(keys.size())));
+    }
+
+    @Override
+    public void onLifelineResult(String lifeline, Object result) {
+        if (result instanceof String) {
+            hint = (String) result;
+        } else if (Lifelines.ASK_AUDIENCE.equals(lifeline)) {
+            @SuppressWarnings("unchecked")
+            Map<String, Integer> percentages = (Map<String, Integer>) result;
+            int best = -1;
+            for (Map.Entry<String, Integer> entry : percentages.entrySet()) {
+                if (entry.getValue() > best) {
+                    best = entry.getValue();
+                    hint = entry.getKey();
+                }
+            }
+        }
+    }
+}
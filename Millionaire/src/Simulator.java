@@ -0,0 +1,225 @@
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+/**
+ * Monte Carlo runner for headless games.
+ * Splits sessions across all cores with fork-join and reports throughput
+ * and the payout distribution, for pricing the prize ladder and tuning lifelines.
+ * All sessions share the built-in question bank; ladders are immutable,
+ * so runs on different ladders can share it too.
+ *
+ * Every session gets its seed from one run seed, split across the tasks in
+ * a fixed order, and its player draws from the session's own stream; a run
+ * is repeated exactly by setting the millionaire.seed property to the seed
+ * it printed.
+ *
+ * Usage: java Simulator [sessions] [ladder ...]
+ * where each ladder is given as for {@link PrizeLadder#parse}, e.g.
+ * "100,200,500*,1000,5000*"; without any, the standard ladder is played.
+ */
+public class Simulator {
+
+    /** Sessions played by one leaf task before it stops splitting. */
+    private static final long LEAF_SESSIONS = 4_096;
+
+    public static void main(String[] args) {
+        long sessions = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long seed = Long.getLong("millionaire.seed", ThreadLocalRandom.current().nextLong());
+        if (args.length < 2) {
+            run(sessions, SimulatedPlayer::new, PrizeLadder.standard(), seed).print();
+            return;
+        }
+        for (int i = 1; i < args.length; i++) {
+            PrizeLadder ladder = PrizeLadder.parse(args[i]);
+            System.out.println("Ladder: " + ladder);
+            run(sessions, SimulatedPlayer::new, ladder, seed).print();
+            System.out.println();
+        }
+    }
+
+    /**
+     * Play the given number of headless sessions on the common fork-join pool.
+     * @param sessions Number of games to play
+     * @param players Creates the player of a session from the session's player stream
+     * @return Aggregated results
+     */
+    public static Result run(long sessions, Function<RandomGenerator, Player> players) {
+        return run(sessions, players, PrizeLadder.standard());
+    }
+
+    /**
+     * Play the given number of headless sessions on a prize ladder, from a random seed.
+     * @param sessions Number of games to play
+     * @param players Creates the player of a session from the session's player stream
+     * @param ladder Prize ladder of every session
+     * @return Aggregated results
+     */
+    public static Result run(long sessions, Function<RandomGenerator, Player> players, PrizeLadder ladder) {
+        return run(sessions, players, ladder, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Play the given number of headless sessions on a prize ladder. The same
+     * seed plays the same games, whatever the number of threads.
+     * @param sessions Number of games to play
+     * @param players Creates the player of a session from the session's player stream
+     * @param ladder Prize ladder of every session
+     * @param seed Seed of the run
+     * @return Aggregated results
+     */
+    public static Result run(long sessions, Function<RandomGenerator, Player> players, PrizeLadder ladder,
+                             long seed) {
+        ladder.checkQuestions(QuestionBank.shared());
+        long start = System.nanoTime();
+        Result result = ForkJoinPool.commonPool().invoke(
+                new SessionTask(0, sessions, new SplittableRandom(seed), players, ladder));
+        result.seed = seed;
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Plays a range of sessions, splitting it in half until it is small enough.
+     */
+    private static class SessionTask extends RecursiveTask<Result> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final SplittableRandom seeds;
+        private final Function<RandomGenerator, Player> players;
+        private final PrizeLadder ladder;
+
+        SessionTask(long from, long to, SplittableRandom seeds, Function<RandomGenerator, Player> players,
+                    PrizeLadder ladder) {
+            this.from = from;
+            this.to = to;
+            this.seeds = seeds;
+            this.players = players;
+            this.ladder = ladder;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from > LEAF_SESSIONS) {
+                long mid = (from + to) >>> 1;
+                // Split before forking, so each half gets the same seeds on every run
+                SessionTask left = new SessionTask(from, mid, seeds.split(), players, ladder);
+                left.fork();
+                Result right = new SessionTask(mid, to, seeds, players, ladder).compute();
+                return right.merge(left.join());
+            }
+
+            QuestionBank bank = QuestionBank.shared();
+            Result result = new Result(ladder);
+            for (long i = from; i < to; i++) {
+                SessionRandom session = new SessionRandom(seeds.nextLong());
+                GameEngine engine = new GameEngine(new QuestionCursor(bank, session.questions()),
+                        new Lifelines(session, false), ladder);
+                engine.play(players.apply(session.player()));
+                result.record(engine);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Aggregated outcome of a batch of sessions.
+     */
+    public static class Result {
+
+        private long sessions;
+        private long wins;
+        private long walkAways;
+        private long totalPayout;
+        private long seed;
+        private long elapsedNanos;
+        private final PrizeLadder ladder;
+        // Sessions per level whose prize they took home, 0 for none
+        private final long[] payouts;
+
+        Result(PrizeLadder ladder) {
+            this.ladder = ladder;
+            this.payouts = new long[ladder.getTotalLevels() + 1];
+        }
+
+        void record(GameEngine engine) {
+            sessions++;
+            if (engine.isGameWon()) {
+                wins++;
+            } else if (engine.hasWalkedAway()) {
+                walkAways++;
+            }
+            totalPayout += engine.getCurrentPrize();
+            payouts[engine.getPrizeLevel()]++;
+        }
+
+        Result merge(Result other) {
+            sessions += other.sessions;
+            wins += other.wins;
+            walkAways += other.walkAways;
+            totalPayout += other.totalPayout;
+            for (int level = 0; level < payouts.length; level++) {
+                payouts[level] += other.payouts[level];
+            }
+            return this;
+        }
+
+        public long getSessions() {
+            return sessions;
+        }
+
+        /**
+         * The seed that plays the same games again.
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        public double getSessionsPerSecond() {
+            return elapsedNanos == 0 ? 0 : sessions * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Average prize paid out per session.
+         */
+        public double getMeanPayout() {
+            return sessions == 0 ? 0 : (double) totalPayout / sessions;
+        }
+
+        /**
+         * Number of sessions per final prize, in ascending prize order.
+         */
+        public TreeMap<Long, Long> getPayoutDistribution() {
+            TreeMap<Long, Long> distribution = new TreeMap<>();
+            for (int level = 0; level < payouts.length; level++) {
+                if (payouts[level] > 0) {
+                    // Levels may share a prize
+                    distribution.merge(ladder.getPrize(level), payouts[level], Long::sum);
+                }
+            }
+            return distribution;
+        }
+
+        public void print() {
+            System.out.printf("Sessions:      %,d in %.2f s (%,.0f sessions/sec)%n",
+                    sessions, elapsedNanos / 1e9, getSessionsPerSecond());
+            System.out.printf("Seed:          %d%n", seed);
+            System.out.printf("Wins:          %,d (%.3f%%)%n", wins, 100.0 * wins / Math.max(1, sessions));
+            System.out.printf("Walk aways:    %,d (%.3f%%)%n", walkAways, 100.0 * walkAways / Math.max(1, sessions));
+            System.out.printf("Mean payout:   $%,.2f%n", getMeanPayout());
+            System.out.println("Payout distribution:");
+            for (Map.Entry<Long, Long> entry : getPayoutDistribution().entrySet()) {
+                System.out.printf("  %-12s %,12d  %7.3f%%%n", TUI.formatPrize(entry.getKey()),
+                        entry.getValue(), 100.0 * entry.getValue() / sessions);
+            }
+        }
+    }
+}
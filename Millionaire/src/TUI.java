@@ -30,11 +30,19 @@ public class TUI {
     
     private static boolean colorsEnabled = true;
     
+    // Each thread (one per session) draws into its own frame buffer
+    private static final ThreadLocal<FrameRenderer> renderer =
+        ThreadLocal.withInitial(() -> new FrameRenderer(System.out));
+    
 
     public static void setColorsEnabled(boolean enabled) {
         colorsEnabled = enabled;
     }
     
+    public static boolean isColorsEnabled() {
+        return colorsEnabled;
+    }
+    
 
     public static String colorize(String text, String color) {
         if (colorsEnabled) {
@@ -44,21 +52,69 @@ public class TUI {
     }
     
 
-    public static void clearScreen() {
-        try {
-            if (System.getProperty("os.name").contains("Windows")) {
-                new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
-            } else {
-                System.out.print("\033[H\033[2J");
-                System.out.flush();
-            }
-        } catch (Exception e) {
-            // Fallback: print multiple newlines
-            for (int i = 0; i < 50; i++) {
-                System.out.println();
-            }
+    /**
+     * Get the frame renderer of the current thread.
+     */
+    public static FrameRenderer getRenderer() {
+        return renderer.get();
+    }
+    
+    /**
+     * Make the current thread draw through the given renderer,
+     * or through the standard output again if it is null.
+     */
+    public static void setRenderer(FrameRenderer frameRenderer) {
+        if (frameRenderer == null) {
+            renderer.remove();
+        } else {
+            renderer.set(frameRenderer);
         }
     }
+    
+    /**
+     * Start a new screen. The previous one is replaced on the next flush,
+     * rewriting only the lines that changed.
+     */
+    public static void clearScreen() {
+        renderer.get().clearScreen();
+    }
+    
+    /**
+     * Send everything drawn since the last flush to the terminal.
+     * Call before waiting for input.
+     */
+    public static void flush() {
+        renderer.get().flush();
+    }
+    
+    /**
+     * Print text without color.
+     */
+    public static void print(String text) {
+        renderer.get().print(text);
+    }
+    
+    /**
+     * Print complete lines, e.g. a pre-rendered block. The lines must not
+     * contain line breaks.
+     */
+    public static void printLines(String[] lines) {
+        renderer.get().printLines(lines);
+    }
+    
+    /**
+     * Print a line without color.
+     */
+    public static void println(String text) {
+        renderer.get().println(text);
+    }
+    
+    /**
+     * Print an empty line.
+     */
+    public static void println() {
+        renderer.get().println();
+    }
 
     public static String horizontalLine(int length, char character) {
         StringBuilder sb = new StringBuilder();
@@ -83,17 +139,17 @@ public class TUI {
         char bottomRight = '╝';
         
         // Top border
-        System.out.println(colorize(topLeft + horizontalLine(width - 2, horizontal) + topRight, borderColor));
+        println(colorize(topLeft + horizontalLine(width - 2, horizontal) + topRight, borderColor));
         
         // Content lines
         for (String line : lines) {
             // Truncate or pad line to fit
             String paddedLine = padToWidth(line, width - 4);
-            System.out.println(colorize(vertical + " " + paddedLine + " " + vertical, borderColor));
+            println(colorize(vertical + " " + paddedLine + " " + vertical, borderColor));
         }
         
         // Bottom border
-        System.out.println(colorize(bottomLeft + horizontalLine(width - 2, horizontal) + bottomRight, borderColor));
+        println(colorize(bottomLeft + horizontalLine(width - 2, horizontal) + bottomRight, borderColor));
     }
     
     /**
@@ -129,24 +185,24 @@ public class TUI {
      */
     public static void displayTitle(String title) {
         int width = 80;
-        System.out.println();
-        System.out.println(colorize(centerText("═".repeat(width), width), CYAN));
-        System.out.println(colorize(centerText(title.toUpperCase(), width), BOLD + YELLOW));
-        System.out.println(colorize(centerText("═".repeat(width), width), CYAN));
-        System.out.println();
+        println();
+        println(colorize(centerText("═".repeat(width), width), CYAN));
+        println(colorize(centerText(title.toUpperCase(), width), BOLD + YELLOW));
+        println(colorize(centerText("═".repeat(width), width), CYAN));
+        println();
     }
     
     /**
      * Display separator line.
      */
     public static void displaySeparator() {
-        System.out.println(colorize("─".repeat(80), CYAN));
+        println(colorize("─".repeat(80), CYAN));
     }
     
     /**
      * Format prize amount with commas.
      */
-    public static String formatPrize(int amount) {
+    public static String formatPrize(long amount) {
         if (amount >= 1_000_000) {
             return String.format("$%,d", amount);
         } else if (amount >= 1000) {
@@ -170,14 +226,14 @@ public class TUI {
      * Print text with a specific color.
      */
     public static void printColor(String text, String color) {
-        System.out.print(colorize(text, color));
+        print(colorize(text, color));
     }
     
     /**
      * Print line with color.
      */
     public static void printlnColor(String text, String color) {
-        System.out.println(colorize(text, color));
+        println(colorize(text, color));
     }
 }
 
@@ -0,0 +1,237 @@
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel for many coarse timeouts, such as question countdowns.
+ *
+ * Time advances in ticks. Each timer hangs in the bucket of its deadline tick,
+ * with the number of full turns of the wheel still to wait, so a tick only
+ * looks at one bucket and scheduling or cancelling is O(1), however many
+ * timers are active. One thread drives the wheel and runs the expired tasks,
+ * which must therefore be short (e.g. wake up a waiting session).
+ *
+ * Timers are scheduled and cancelled from any thread; the changes are queued
+ * and applied by the driving thread on its next tick.
+ */
+public class TimerWheel {
+
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeTimers = new AtomicInteger();
+
+    // Next tick to process; written only by the driving thread
+    private volatile long tick;
+    private Thread driver;
+    private volatile boolean running;
+
+    // Holder class: the shared wheel and its thread start on first use
+    private static class SharedWheel {
+        static final TimerWheel INSTANCE = new TimerWheel(100, TimeUnit.MILLISECONDS, 512).start();
+    }
+
+    /**
+     * @param tickDuration Length of a tick, the resolution of the timers
+     * @param wheelSize Number of buckets, rounded up to a power of two
+     */
+    public TimerWheel(long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        this.buckets = new Timeout[size];
+    }
+
+    /**
+     * Get the wheel shared by every game in this JVM (100 ms ticks).
+     */
+    public static TimerWheel shared() {
+        return SharedWheel.INSTANCE;
+    }
+
+    /**
+     * Drive the wheel from a daemon thread in real time.
+     * @return This wheel
+     */
+    public synchronized TimerWheel start() {
+        if (driver == null) {
+            running = true;
+            driver = new Thread(this::run, "timer-wheel");
+            driver.setDaemon(true);
+            driver.start();
+        }
+        return this;
+    }
+
+    /**
+     * Stop the driving thread. Pending timers stay pending.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (driver != null) {
+            driver.interrupt();
+            driver = null;
+        }
+    }
+
+    /**
+     * Run a task once the delay has passed.
+     * The delay is rounded up to whole ticks.
+     * @return Handle to cancel the timer
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long ticks = Math.max(1, (unit.toNanos(delay) + tickNanos - 1) / tickNanos);
+        Timeout timeout = new Timeout(this, task, tick + ticks - 1);
+        activeTimers.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Number of timers neither expired nor cancelled.
+     */
+    public int getActiveTimers() {
+        return activeTimers.get();
+    }
+
+    /**
+     * Process one tick: apply queued changes, then expire the timers due in
+     * the current bucket. Called by the driving thread, or directly when the
+     * wheel is not started (e.g. in tests and benchmarks).
+     */
+    public void advance() {
+        long now = tick;
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() == Timeout.PENDING) {
+                long deadline = Math.max(timeout.deadline, now);
+                timeout.rounds = (deadline - now) / buckets.length;
+                link(timeout, (int) (deadline & mask));
+            }
+        }
+        while ((timeout = cancelled.poll()) != null) {
+            unlink(timeout);
+        }
+
+        timeout = buckets[(int) (now & mask)];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else {
+                unlink(timeout);
+                timeout.expire();
+            }
+            timeout = next;
+        }
+        tick = now + 1;
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        long processed = 0;
+        while (running) {
+            long due = (System.nanoTime() - start) / tickNanos;
+            while (processed <= due) {
+                advance();
+                processed++;
+            }
+            LockSupport.parkNanos(start + processed * tickNanos - System.nanoTime());
+        }
+    }
+
+    private void link(Timeout timeout, int index) {
+        timeout.bucket = index;
+        timeout.prev = null;
+        timeout.next = buckets[index];
+        if (buckets[index] != null) {
+            buckets[index].prev = timeout;
+        }
+        buckets[index] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.bucket < 0) {
+            return; // never linked, or already removed
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+
+    /**
+     * A scheduled task. Expires or is cancelled at most once.
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // Bucket links, touched only by the driving thread
+        private long rounds;
+        private int bucket = -1;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the timer.
+         * @return true if it was cancelled, false if it had already expired or been cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.activeTimers.decrementAndGet();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            wheel.activeTimers.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Timer task failed: " + e);
+            }
+        }
+    }
+}
@@ -33,7 +33,7 @@ public class TrueFalseQuestion extends Question {
      */
     @Override
     public void displayOptions() {
-        System.out.println();
+        TUI.println();
         TUI.printColor("┌─────────────────────────────────────────┐\n", TUI.CYAN);
         TUI.printColor("│ ", TUI.CYAN);
         TUI.printColor("Option T: True", TUI.BOLD + TUI.GREEN);
@@ -48,14 +48,18 @@ public class TrueFalseQuestion extends Question {
      * Override getInput to provide True/False specific prompt.
      */
     @Override
-    @SuppressWarnings("resource")
     public String getInput() {
-        // Scanner for System.in should not be closed in console applications
-        java.util.Scanner scanner = new java.util.Scanner(System.in);
+        InputReader reader = InputReader.current();
         String input;
         while (true) {
             TUI.printColor("Enter your answer (T for True, F for False): ", TUI.YELLOW);
-            input = scanner.nextLine().toUpperCase().trim();
+            TUI.flush();
+            input = reader.readLine();
+            if (input == null) {
+                input = "";
+            }
+            TUI.getRenderer().inputEcho(input);
+            input = input.toUpperCase().trim();
             if (input.equals("T") || input.equals("F")) {
                 return input;
             } else {
@@ -0,0 +1,120 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * What the renderer writes to the terminal for each kind of flush.
+ */
+class FrameRendererTest {
+
+    private static final String CLEAR = "\033[H\033[2J";
+    private static final String CLEAR_LINE = "\033[K";
+
+    private final ByteArrayOutputStream terminal = new ByteArrayOutputStream();
+    private final FrameRenderer renderer = new FrameRenderer(terminal, "\n", 4);
+
+    /**
+     * Flush and take what reached the terminal.
+     */
+    private String flush() {
+        renderer.flush();
+        String written = terminal.toString(StandardCharsets.UTF_8);
+        terminal.reset();
+        return written;
+    }
+
+    private void frame(String text) {
+        renderer.clearScreen();
+        renderer.print(text);
+    }
+
+    @Test
+    void firstFrameIsDrawnInFull() {
+        frame("one\ntwo\n> ");
+        assertEquals(CLEAR + "one\ntwo\n> ", flush());
+    }
+
+    @Test
+    void continuationWritesOnlyWhatWasAppended() {
+        frame("one\n> ");
+        flush();
+
+        renderer.print("typed");
+        assertEquals("typed", flush());
+
+        renderer.println();
+        renderer.printLines(new String[] {"three", "four"});
+        renderer.print("> ");
+        assertEquals("\nthree\nfour\n> ", flush());
+
+        assertEquals("", flush());
+    }
+
+    @Test
+    void echoedInputIsNotWrittenAgain() {
+        frame("Your answer: ");
+        flush();
+
+        renderer.inputEcho("A");
+        renderer.print("Correct!");
+        // The terminal echoed the line break too
+        assertEquals("Correct!", flush());
+    }
+
+    @Test
+    void newFrameRewritesOnlyChangedLines() {
+        frame("title\nold\nsame\n> ");
+        flush();
+
+        frame("title\nnew\nsame\n> ");
+        assertEquals("\033[2;1Hnew" + CLEAR_LINE + "\033[4;1H> " + CLEAR_LINE + "\033[J", flush());
+    }
+
+    @Test
+    void shorterFrameClearsWhatIsLeftBelow() {
+        frame("title\nmore\nlines\n> ");
+        flush();
+
+        frame("title\n> ");
+        assertEquals("\033[2;1H> " + CLEAR_LINE + "\033[J", flush());
+    }
+
+    @Test
+    void frameThatStartsScrollingIsRedrawn() {
+        frame("a\nb\n> ");
+        flush();
+
+        frame("a\nb\nc\nd\n> ");
+        assertEquals(CLEAR + "a\nb\nc\nd\n> ", flush());
+    }
+
+    @Test
+    void scrolledFramesAreComparedFromTheBottomRow() {
+        // 4 terminal rows: the screen holds "3", "4", "5" and the prompt
+        frame("1\n2\n3\n4\n5\n> ");
+        flush();
+
+        // One line longer, so every row moved up by one
+        frame("1\n2\n3\n4\n5\n6\n> ");
+        assertEquals("\r\033[3A\033[1J"
+                + "\r4" + CLEAR_LINE
+                + "\033[1B\r5" + CLEAR_LINE
+                + "\033[1B\r6" + CLEAR_LINE
+                + "\033[1B\r> " + CLEAR_LINE, flush());
+    }
+
+    @Test
+    void scrolledFramesSkipUnchangedRows() {
+        frame("1\n2\n3\n4\n5\n> ");
+        flush();
+
+        frame("1\n2\n3\nx\n5\n> ");
+        assertEquals("\r\033[3A\033[1J"
+                + "\r3" + CLEAR_LINE
+                + "\033[1B\rx" + CLEAR_LINE
+                + "\033[2B\r> " + CLEAR_LINE, flush());
+    }
+}
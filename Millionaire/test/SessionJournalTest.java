@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Replaying the journal back into the games that were in progress.
+ */
+class SessionJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysUnfinishedGames() throws IOException {
+        Path path = dir.resolve("journal");
+        try (SessionJournal journal = SessionJournal.open(path, 5)) {
+            journal.sessionStarted(1);
+            journal.questionShown(1, 1, 3);
+            journal.answered(1, 1, true, 100);
+            journal.questionShown(1, 2, 7);
+            journal.lifelineUsed(1, 2, Lifelines.FIFTY_FIFTY, 2);
+
+            journal.sessionStarted(2);
+            journal.questionShown(2, 1, 0);
+            journal.answered(2, 1, true, 100);
+        }
+
+        Map<Long, SessionJournal.SessionState> states = SessionJournal.replay(path);
+        assertEquals(2, states.size());
+
+        SessionJournal.SessionState first = states.get(1L);
+        assertEquals(2, first.getLevel());
+        assertEquals(100, first.getPrize());
+        assertEquals(7, first.getQuestionIndex());
+        assertEquals(2, first.getFiftyFiftyKept());
+        assertTrue(first.isLifelineUsed(Lifelines.FIFTY_FIFTY));
+        assertFalse(first.isLifelineUsed(Lifelines.ASK_AUDIENCE));
+
+        // Answered, next question not drawn yet
+        SessionJournal.SessionState second = states.get(2L);
+        assertEquals(2, second.getLevel());
+        assertEquals(-1, second.getQuestionIndex());
+        assertEquals(-1, second.getFiftyFiftyKept());
+    }
+
+    @Test
+    void dropsFinishedGames() throws IOException {
+        Path path = dir.resolve("journal");
+        try (SessionJournal journal = SessionJournal.open(path, 5)) {
+            journal.sessionStarted(1);
+            journal.questionShown(1, 1, 0);
+            journal.answered(1, 1, false, 0);
+
+            journal.sessionStarted(2);
+            journal.questionShown(2, 1, 0);
+            journal.walkedAway(2, 1, 0);
+
+            journal.sessionStarted(3);
+            journal.gameEnded(3, 1, 0);
+        }
+
+        assertTrue(SessionJournal.replay(path).isEmpty());
+    }
+
+    @Test
+    void stopsAtATornRecord() throws IOException {
+        Path path = dir.resolve("journal");
+        long torn;
+        try (SessionJournal journal = SessionJournal.open(path, 5)) {
+            journal.sessionStarted(1);
+            journal.questionShown(1, 1, 4);
+            torn = journal.getPosition();
+            journal.answered(1, 1, true, 100);
+            journal.questionShown(1, 2, 5);
+        }
+        // Flip a byte of the answer, as a crash halfway through writing it would
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer prize = ByteBuffer.allocate(1);
+            channel.read(prize, torn + 16);
+            prize.flip();
+            prize.put(0, (byte) (prize.get(0) ^ 1));
+            channel.write(prize, torn + 16);
+        }
+
+        SessionJournal.SessionState state = SessionJournal.replay(path).get(1L);
+        assertEquals(1, state.getLevel());
+        assertEquals(0, state.getPrize());
+        assertEquals(4, state.getQuestionIndex());
+    }
+
+    @Test
+    void reopeningCompactsAndKeepsAppending() throws IOException {
+        Path path = dir.resolve("journal");
+        try (SessionJournal journal = SessionJournal.open(path, 5)) {
+            journal.sessionStarted(1);
+            journal.questionShown(1, 1, 0);
+            journal.answered(1, 1, true, 100);
+            journal.questionShown(1, 2, 6);
+            journal.lifelineUsed(1, 2, Lifelines.PHONE_FRIEND, -1);
+            journal.sessionStarted(2);
+            journal.gameEnded(2, 1, 0);
+        }
+
+        try (SessionJournal journal = SessionJournal.open(path, 5)) {
+            // One STATE record for the one unfinished game
+            assertEquals(SessionJournal.RECORD_SIZE, journal.getPosition());
+            SessionJournal.SessionState state = journal.getRecoveredSessions().get(1L);
+            assertEquals(2, state.getLevel());
+            assertEquals(6, state.getQuestionIndex());
+            assertTrue(state.isLifelineUsed(Lifelines.PHONE_FRIEND));
+            journal.awaitDurable(journal.answered(1, 2, true, 200));
+        }
+
+        SessionJournal.SessionState state = SessionJournal.replay(path).get(1L);
+        assertEquals(3, state.getLevel());
+        assertEquals(200, state.getPrize());
+        assertTrue(state.isLifelineUsed(Lifelines.PHONE_FRIEND));
+    }
+}
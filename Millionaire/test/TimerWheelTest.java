@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Timers on a wheel that is driven by hand, one tick per {@link TimerWheel#advance()}.
+ */
+class TimerWheelTest {
+
+    private final TimerWheel wheel = new TimerWheel(10, TimeUnit.MILLISECONDS, 8);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private void advance(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            wheel.advance();
+        }
+    }
+
+    @Test
+    void expiresOnItsTick() {
+        // Rounded up to 3 ticks
+        TimerWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 25, TimeUnit.MILLISECONDS);
+        advance(2);
+        assertEquals(0, runs.get());
+        assertFalse(timeout.isExpired());
+
+        advance(1);
+        assertEquals(1, runs.get());
+        assertTrue(timeout.isExpired());
+        assertEquals(0, wheel.getActiveTimers());
+
+        advance(20);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void waitsOutFullTurnsOfTheWheel() {
+        // 20 ticks on a wheel of 8 buckets: two turns, then 4 more ticks
+        wheel.schedule(runs::incrementAndGet, 200, TimeUnit.MILLISECONDS);
+        advance(19);
+        assertEquals(0, runs.get());
+        advance(1);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void countsFromTheCurrentTick() {
+        advance(5);
+        wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        advance(2);
+        assertEquals(0, runs.get());
+        advance(1);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void waitsAtLeastOneTick() {
+        wheel.schedule(runs::incrementAndGet, 0, TimeUnit.MILLISECONDS);
+        assertEquals(0, runs.get());
+        advance(1);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void cancelledTimersNeverRun() {
+        TimerWheel.Timeout cancelledEarly = wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        TimerWheel.Timeout cancelledLate = wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        TimerWheel.Timeout kept = wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        assertEquals(3, wheel.getActiveTimers());
+
+        // Before the wheel has even picked it up
+        assertTrue(cancelledEarly.cancel());
+        advance(1);
+        // After it hangs in its bucket
+        assertTrue(cancelledLate.cancel());
+        assertFalse(cancelledLate.cancel());
+        assertEquals(1, wheel.getActiveTimers());
+
+        advance(10);
+        assertEquals(1, runs.get());
+        assertTrue(cancelledEarly.isCancelled());
+        assertTrue(cancelledLate.isCancelled());
+        assertFalse(cancelledLate.isExpired());
+        assertTrue(kept.isExpired());
+        assertEquals(0, wheel.getActiveTimers());
+    }
+
+    @Test
+    void expiredTimersCannotBeCancelled() {
+        TimerWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 10, TimeUnit.MILLISECONDS);
+        advance(1);
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.isCancelled());
+        assertEquals(0, wheel.getActiveTimers());
+    }
+}